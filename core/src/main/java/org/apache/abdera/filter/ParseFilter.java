@@ -17,53 +17,64 @@
 */
 package org.apache.abdera.filter;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
 /**
  * ParseFilter's determine which elements and attributes are acceptable
  * within a parsed document.  They are set via the ParserOptions.setParseFilter
- * method.
+ * method.  Entries may be individual QNames or entire namespaces; lookups
+ * are hash based.  A filter should be fully configured before it is used 
+ * and may then be shared by multiple threads.
  */
 public abstract class ParseFilter {
   
-  private List<QName> qnames = null;
-  private Map<QName,List<QName>> attributes = null;
+  private Set<QName> qnames = null;
+  private Set<String> namespaces = null;
+  private Map<QName,Set<QName>> attributes = null;
   
   public void add(QName qname) {
-    if (qnames == null) qnames = new ArrayList<QName>();
-    if (!contains(qname)) qnames.add(qname);
+    if (qnames == null) qnames = new HashSet<QName>();
+    qnames.add(qname);
   }
 
+  /**
+   * Adds every element and attribute in the given namespace to the filter
+   */
+  public void addNamespace(String namespace) {
+    if (namespaces == null) namespaces = new HashSet<String>();
+    namespaces.add(namespace);
+  }
+  
+  public boolean containsNamespace(String namespace) {
+    return namespaces != null && namespaces.contains(namespace);
+  }
+  
   public boolean contains(QName qname) {
-    if (qnames == null) qnames = new ArrayList<QName>();
-    return qnames.contains(qname);
+    return (qnames != null && qnames.contains(qname)) ||
+      containsNamespace(qname.getNamespaceURI());
   }
 
   public void addAttribute(QName parent, QName attribute) {
-    if (attributes == null) attributes = new HashMap<QName,List<QName>>();
-    if (attributes.containsKey(parent)) {
-      List<QName> attrs = attributes.get(parent);
-      if (!attrs.contains(attribute)) attrs.add(attribute);
-    } else {
-      List<QName> attrs = new ArrayList<QName>();
-      attrs.add(attribute);
+    if (attributes == null) attributes = new HashMap<QName,Set<QName>>();
+    Set<QName> attrs = attributes.get(parent);
+    if (attrs == null) {
+      attrs = new HashSet<QName>();
       attributes.put(parent, attrs);
     }
+    attrs.add(attribute);
   }
 
   public boolean containsAttribute(QName qname, QName attribute) {
-    if (attributes == null) attributes = new HashMap<QName,List<QName>>();
-    if (attributes.containsKey(qname)) {
-      List<QName> attrs = attributes.get(qname);
-      return attrs.contains(attribute);
-    } else {
-      return false;
-    }
+    String ns = attribute.getNamespaceURI();
+    if (ns.length() > 0 && containsNamespace(ns)) return true;
+    if (attributes == null) return false;
+    Set<QName> attrs = attributes.get(qname);
+    return attrs != null && attrs.contains(attribute);
   }
 
   public abstract boolean acceptable(QName qname);
@@ -0,0 +1,35 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.filter;
+
+/**
+ * A StopFilter tells the parser where to stop reading a feed.  It is set
+ * via the ParserOptions.setStopFilter method and is consulted with the id 
+ * of each entry in document order; typically it returns true for the first
+ * entry that the application has already seen, so that only the entries 
+ * that are new since the last poll are read.
+ */
+public abstract class StopFilter {
+
+  /**
+   * Returns true if the parser should stop at the entry with the given id.
+   * That entry and everything following it are left out of the document
+   */
+  public abstract boolean stopAt(String id);
+  
+}
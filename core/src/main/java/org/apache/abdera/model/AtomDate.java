@@ -156,14 +156,136 @@ public final class AtomDate {
     "yyyy"
   };
    
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+  
+  private static final long NOT_PARSED = Long.MIN_VALUE;
+  
+  // 1600-01-01T00:00:00Z and 9999-12-31T23:59:59.999Z.  Outside this range
+  // the Julian calendar and the year format of SimpleDateFormat apply
+  private static final long MIN_FAST = -11676096000000L;
+  private static final long MAX_FAST = 253402300799999L;
+  
+  /**
+   * Parses an RFC 3339 date-time.  Well formed values, including lowercase 
+   * "t" and "z" and offsets written with or without a colon, are parsed 
+   * directly.  Anything else (named time zones, missing zones, trailing 
+   * data and so on) is handed to the same lenient SimpleDateFormat masks 
+   * that have always been used
+   */
   public static Date parse(String date) {
+    if (date != null) {
+      long time = parseRfc3339(date);
+      if (time != NOT_PARSED) return new Date(time);
+    }
+    return parseLenient(date);
+  }
+  
+  private static long parseRfc3339(String s) {
+    int len = s.length();
+    int year = digits(s, 0, 4);
+    if (year < 1600) return NOT_PARSED;
+    int month = 1, day = 1, hour = 0, minute = 0, second = 0, millis = 0;
+    int offset = 0;
+    int p = 4;
+    if (p < len) {
+      if (s.charAt(p) != '-') return NOT_PARSED;
+      month = digits(s, p + 1, 2);
+      if (month < 1 || month > 12) return NOT_PARSED;
+      p += 3;
+    }
+    if (p < len) {
+      if (s.charAt(p) != '-') return NOT_PARSED;
+      day = digits(s, p + 1, 2);
+      if (day < 0) return NOT_PARSED;
+      p += 3;
+    }
+    if (p < len) {
+      char c = s.charAt(p);
+      if (c != 'T' && c != 't') return NOT_PARSED;
+      hour = digits(s, p + 1, 2);
+      if (hour < 0 || !at(s, p + 3, ':')) return NOT_PARSED;
+      minute = digits(s, p + 4, 2);
+      if (minute < 0) return NOT_PARSED;
+      p += 6;
+      if (at(s, p, ':')) {
+        second = digits(s, p + 1, 2);
+        if (second < 0) return NOT_PARSED;
+        p += 3;
+        if (at(s, p, '.')) {
+          int scale = 100;
+          int start = ++p;
+          for (; p < len && isDigit(s.charAt(p)); p++) {
+            millis += (s.charAt(p) - '0') * scale;
+            scale /= 10;
+          }
+          if (p == start) return NOT_PARSED;
+        }
+      }
+      if (p == len) return NOT_PARSED;
+      c = s.charAt(p++);
+      if (c == '+' || c == '-') {
+        int hours = digits(s, p, 2);
+        if (hours < 0) return NOT_PARSED;
+        p += 2;
+        if (at(s, p, ':')) p++;
+        int minutes = digits(s, p, 2);
+        if (minutes < 0) return NOT_PARSED;
+        p += 2;
+        offset = (hours * 60 + minutes) * ((c == '-') ? -60 : 60);
+      } else if (c != 'Z' && c != 'z') {
+        return NOT_PARSED;
+      }
+      if (p != len) return NOT_PARSED;
+    }
+    long seconds = daysFromCivil(year, month, day) * 86400L + 
+      hour * 3600 + minute * 60 + second - offset;
+    long time = seconds * 1000 + millis;
+    return (time >= MIN_FAST && time <= MAX_FAST) ? time : NOT_PARSED;
+  }
+  
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+  
+  private static boolean at(String s, int p, char c) {
+    return p < s.length() && s.charAt(p) == c;
+  }
+  
+  /**
+   * Returns the value of exactly count digits starting at p, or -1
+   */
+  private static int digits(String s, int p, int count) {
+    if (p + count > s.length()) return -1;
+    int value = 0;
+    for (int n = p; n < p + count; n++) {
+      char c = s.charAt(n);
+      if (!isDigit(c)) return -1;
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+  
+  /**
+   * Days since 1970-01-01 in the proleptic Gregorian calendar.  Days past 
+   * the end of the month roll over into the following month
+   */
+  private static long daysFromCivil(int year, int month, int day) {
+    long y = (month <= 2) ? year - 1 : year;
+    long era = (y >= 0 ? y : y - 399) / 400;
+    long yoe = y - era * 400;
+    long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
+  }
+  
+  private static Date parseLenient(String date) {
     Date d = null;
     SimpleDateFormat sdf = new SimpleDateFormat();
+    sdf.setTimeZone(GMT);
+    sdf.setLenient(true);
     for (int n = 0; n < masks.length; n++) {
       try {
         sdf.applyPattern(masks[n]);
-        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-        sdf.setLenient(true);
         d = sdf.parse(date, new ParsePosition(0));
         if (d != null) break;
       } catch (Exception e) {}
@@ -173,10 +295,58 @@ public final class AtomDate {
     return d;
   }
   
+  /**
+   * Formats the date as yyyy-MM-dd'T'HH:mm:ss.SSS'Z' in GMT
+   */
   public static String format (Date d) {
+    long time = d.getTime();
+    if (time < MIN_FAST || time > MAX_FAST) return formatLenient(d);
+    long days = floorDiv(time, 86400000L);
+    int ms = (int)(time - days * 86400000L);
+    // civil date from days since the epoch
+    long z = days + 719468;
+    long era = (z >= 0 ? z : z - 146096) / 146097;
+    long doe = z - era * 146097;
+    long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+    long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    long mp = (5 * doy + 2) / 153;
+    int day = (int)(doy - (153 * mp + 2) / 5 + 1);
+    int month = (int)(mp < 10 ? mp + 3 : mp - 9);
+    int year = (int)(yoe + era * 400 + (month <= 2 ? 1 : 0));
+    char[] buf = new char[24];
+    pad(buf, 0, year, 4);
+    buf[4] = '-';
+    pad(buf, 5, month, 2);
+    buf[7] = '-';
+    pad(buf, 8, day, 2);
+    buf[10] = 'T';
+    pad(buf, 11, ms / 3600000, 2);
+    buf[13] = ':';
+    pad(buf, 14, (ms / 60000) % 60, 2);
+    buf[16] = ':';
+    pad(buf, 17, (ms / 1000) % 60, 2);
+    buf[19] = '.';
+    pad(buf, 20, ms % 1000, 3);
+    buf[23] = 'Z';
+    return new String(buf);
+  }
+  
+  private static long floorDiv(long x, long y) {
+    long q = x / y;
+    return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+  }
+  
+  private static void pad(char[] buf, int p, int value, int count) {
+    for (int n = p + count - 1; n >= p; n--) {
+      buf[n] = (char)('0' + value % 10);
+      value /= 10;
+    }
+  }
+  
+  private static String formatLenient(Date d) {
     StringBuffer iso8601 = new StringBuffer();
     SimpleDateFormat sdf = new SimpleDateFormat(masks[2]);
-    sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+    sdf.setTimeZone(GMT);
     sdf.format(d, iso8601, new FieldPosition(0));
     return iso8601.toString();
   }
@@ -17,8 +17,11 @@
 */
 package org.apache.abdera.model;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.WritableByteChannel;
 
 import javax.activation.DataHandler;
 import javax.activation.MimeType;
@@ -198,6 +201,22 @@ public interface Content extends Element {
    */
   void setDataHandler(DataHandler dataHandler);
   
+  /**
+   * Writes the Base64 decoded value of the content element to the given
+   * stream.  The value is decoded a piece at a time as it is read, so 
+   * neither the complete Base64 text nor the complete decoded value is 
+   * held in memory.  The stream is flushed but not closed.
+   * @throws UnsupportedOperationException if type = text, html, xhtml, or any application/*+xml, or text/* type
+   */
+  void writeDecodedTo(OutputStream out) throws IOException;
+  
+  /**
+   * Writes the Base64 decoded value of the content element to the given
+   * channel.  The channel is not closed.
+   * @throws UnsupportedOperationException if type = text, html, xhtml, or any application/*+xml, or text/* type
+   */
+  void writeDecodedTo(WritableByteChannel channel) throws IOException;
+  
   String getValue();
   
   void setValue(String value);
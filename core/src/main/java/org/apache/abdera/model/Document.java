@@ -89,4 +89,33 @@ public interface Document<T extends Element>
    * Sets the charset used for this document
    */
   void setCharset(String charset);
+  
+  /**
+   * Returns an immutable snapshot of this document.  The snapshot implements
+   * the read side of the Feed Object Model, throws 
+   * UnsupportedOperationException from every mutator, can be shared between
+   * threads without synchronization and takes far less memory than the 
+   * parsed tree.  Comments and processing instructions are not retained, 
+   * nor is whitespace between the child elements of feeds, entries and 
+   * other Atom containers.  Calling freeze() on a snapshot returns it 
+   * unchanged, and clone() on a snapshot returns a mutable copy
+   */
+  Document<T> freeze();
+  
+  /**
+   * Reads the rest of the document from the parser, releases the parser
+   * and makes the document read-only.  Afterwards every getter on the 
+   * document and its elements is safe to call from any number of threads
+   * without synchronization, and every mutator throws 
+   * UnsupportedOperationException.  Unlike freeze(), the document keeps its
+   * Feed Object Model tree, including comments and whitespace.  Calling
+   * complete() again has no effect
+   */
+  Document<T> complete();
+  
+  /**
+   * Returns true if the document can no longer be modified, either because
+   * complete() has been called or because it is a snapshot
+   */
+  boolean isReadOnly();
 }
@@ -552,4 +552,10 @@ public interface Entry
    */
   Link getEditLink();
   
+  /**
+   * Returns an immutable snapshot of this entry
+   * @see Document#freeze()
+   */
+  Entry freeze();
+  
 }
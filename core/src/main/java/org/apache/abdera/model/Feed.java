@@ -17,7 +17,11 @@
 */
 package org.apache.abdera.model;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>Represents an Atom Feed Element</p>
@@ -111,6 +115,12 @@ public interface Feed
    */
   Entry addEntry();
   
+  /**
+   * Adds the given entries, in iteration order, to the <i>end</i> of the
+   * Feeds collection of entries.  Each entry is appended in constant time
+   */
+  void addEntries(java.util.Collection<Entry> entries);
+  
   /**
    * Adds a new Entry to the <i>start</i> of the Feeds collection of entries
    */
@@ -121,8 +131,36 @@ public interface Feed
    */
   Entry insertEntry();
   
+  /**
+   * Reorders the Feeds collection of entries in place using the given
+   * comparator.  The sort is stable and every other child of the feed 
+   * keeps its position
+   */
+  void sortEntries(Comparator<Entry> comparator);
+  
+  /**
+   * Reorders the Feeds collection of entries in place by their atom:updated
+   * values, newest first if descending is true.  Each value is parsed once;
+   * entries without an updated date sort as the oldest
+   */
+  void sortEntriesByUpdated(boolean descending);
+  
   /**
    * Creates a Source element from this Feed
    */
   Source getAsSource();
+  
+  /**
+   * Returns the resolved href of every link in this feed, its entries and 
+   * their sources, in document order.  The tree is walked once and each 
+   * xml:base along the way is resolved only once, which is considerably 
+   * cheaper than calling Link.getResolvedHref() on each link in turn
+   */
+  Map<Link,URI> getResolvedHrefs() throws URISyntaxException;
+  
+  /**
+   * Returns an immutable snapshot of this feed
+   * @see Document#freeze()
+   */
+  Feed freeze();
 }
@@ -0,0 +1,40 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser;
+
+/**
+ * Receives the metrics collected while a document was parsed.  Listeners
+ * are registered using ParserOptions.setParseListener.  Metrics are 
+ * reported once the parser has read the root element of the document or
+ * has failed; since documents are parsed incrementally, that may be some time 
+ * after Parser.parse has returned, and may happen on whichever thread 
+ * finishes reading the document.  A listener that is shared by several 
+ * parsers must therefore be thread safe.
+ */
+public abstract class ParseListener {
+
+  /**
+   * Called when the parser has read the root element of the document
+   */
+  public void parsed(ParseMetrics metrics) {}
+  
+  /**
+   * Called when the document could not be parsed
+   */
+  public void failed(ParseMetrics metrics, Throwable error) {}
+}
@@ -0,0 +1,77 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser;
+
+/**
+ * The measurements taken while parsing a single document
+ */
+public interface ParseMetrics {
+
+  /**
+   * Returns the base URI of the document, or null
+   */
+  String getBaseUri();
+  
+  /**
+   * Returns the number of bytes read from the input, or the number of 
+   * characters if the document was parsed from a Reader.  Returns -1 if
+   * the input was not counted
+   */
+  long getBytesRead();
+  
+  /**
+   * Returns the character set used to decode the input, or null if it 
+   * is not known
+   */
+  String getCharset();
+  
+  /**
+   * Returns the number of elements built
+   */
+  long getElementsBuilt();
+  
+  /**
+   * Returns the number of elements skipped because of the ParseFilter or 
+   * the field projection, including the descendants of skipped elements
+   */
+  long getElementsDropped();
+  
+  /**
+   * Returns the number of attributes skipped because of the ParseFilter
+   */
+  long getAttributesDropped();
+  
+  /**
+   * Returns the number of text nodes and attribute values changed by 
+   * the TextFilter
+   */
+  long getTextFiltered();
+  
+  /**
+   * Returns the elapsed time, in nanoseconds, spent parsing the document.  
+   * Time that the application spends between incremental parse steps is 
+   * not included
+   */
+  long getWallTime();
+  
+  /**
+   * Returns the CPU time, in nanoseconds, spent parsing the document, or 
+   * -1 if the virtual machine does not support measuring thread CPU time
+   */
+  long getCpuTime();
+}
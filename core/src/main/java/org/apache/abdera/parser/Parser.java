@@ -17,10 +17,16 @@
 */
 package org.apache.abdera.parser;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
@@ -93,5 +99,76 @@ public interface Parser {
     ParserOptions options) 
       throws ParseException, URISyntaxException;
   
+  /**
+   * Parses the bytes between the buffer's position and limit.  The position
+   * of the buffer is not modified.  The buffer must not be changed while the 
+   * document is being parsed.
+   */
+  <T extends Element>Document<T> parse(
+    ByteBuffer buf) 
+      throws ParseException;
+  
+  <T extends Element>Document<T> parse(
+    ByteBuffer buf, 
+    URI base) 
+      throws ParseException;
+  
+  <T extends Element>Document<T> parse(
+    ByteBuffer buf, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException;
+  
+  /**
+   * Parses the remaining content of the channel, starting at its current
+   * position.  Large files may be memory mapped rather than read. The 
+   * channel is not closed by the parser.
+   */
+  <T extends Element>Document<T> parse(
+    FileChannel channel) 
+      throws ParseException;
+  
+  <T extends Element>Document<T> parse(
+    FileChannel channel, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException;
+
+  /**
+   * Parses the file, using the file's URI as the base URI.  Large files may 
+   * be memory mapped rather than read.
+   */
+  <T extends Element>Document<T> parse(
+    File file) 
+      throws ParseException;
+  
+  <T extends Element>Document<T> parse(
+    File file, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException;
+  
+  /**
+   * Parses each of the streams as a separate task on the given executor.
+   * The returned futures are in the same order as the streams; if a 
+   * document cannot be parsed, its future throws an ExecutionException 
+   * whose cause is the ParseException.  Each document is fully read before 
+   * its future completes and each stream is closed once it has been parsed.
+   * The executor is not shut down by the parser.
+   */
+  <T extends Element>List<Future<Document<T>>> parseAll(
+    Iterable<? extends InputStream> in,
+    ExecutorService executor);
+  
+  /**
+   * Parses each of the streams as a separate task on the given executor.
+   * Every task works on its own copy of the options.
+   */
+  <T extends Element>List<Future<Document<T>>> parseAll(
+    Iterable<? extends InputStream> in,
+    URI base,
+    ParserOptions options,
+    ExecutorService executor);
+  
   ParserOptions getDefaultParserOptions();
 }
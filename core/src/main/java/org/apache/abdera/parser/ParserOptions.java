@@ -17,9 +17,16 @@
 */
 package org.apache.abdera.parser;
 
+import java.util.Date;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.filter.ParseFilter;
+import org.apache.abdera.filter.StopFilter;
 import org.apache.abdera.filter.TextFilter;
+import org.apache.abdera.util.SymbolTable;
 
 
 /**
@@ -75,10 +82,128 @@ public interface ParserOptions {
    */
   void setTextFilter(TextFilter textFilter);
   
+  /**
+   * Returns the set of Atom fields to keep when parsing, or null if every
+   * field is kept.
+   */
+  Set<QName> getProjection();
+  
+  /**
+   * Sets the Atom fields (the child elements of feed, entry and source) 
+   * to keep when parsing.  All other children of those elements, including
+   * extension elements, are skipped by the parser without being built.
+   * Entries within a feed are always kept.  The descendants of a kept field 
+   * are kept in full.  Calling with no fields removes the projection.
+   */
+  void setProjection(QName... fields);
+  
+  /**
+   * Returns true if XHTML and XML content is captured lazily
+   */
+  boolean getLazyContent();
+  
+  /**
+   * When true, the parser retains the input text and records where the 
+   * body of each XHTML or XML content element and XHTML text element 
+   * begins and ends instead of building it.  The body is parsed when it 
+   * is first accessed and is written back out verbatim if it is never 
+   * accessed.
+   */
+  void setLazyContent(boolean lazy);
+  
+  /**
+   * Returns true if repeated attribute values and short text values are
+   * interned while parsing
+   */
+  boolean getInternValues();
+  
+  /**
+   * When true, the parser routes attribute values and short text values 
+   * through a SymbolTable so that repeated values (link relations, 
+   * category terms, content types, etc) share a single instance.  Unless
+   * a table has been set using setSymbolTable, a new table is used for 
+   * each parse.
+   */
+  void setInternValues(boolean intern);
+  
+  /**
+   * Returns the SymbolTable shared by every parse using these options, or 
+   * null if each parse uses its own table
+   */
+  SymbolTable getSymbolTable();
+  
+  /**
+   * Sets the SymbolTable shared by every parse using these options.  
+   * Setting a table also turns on value interning.  Tables are thread 
+   * safe and may be shared by multiple parsers.
+   */
+  void setSymbolTable(SymbolTable symbolTable);
+  
+  /**
+   * Returns the listener that receives the metrics of each parsed document
+   */
+  ParseListener getParseListener();
+  
+  /**
+   * Sets the listener that receives the metrics of each parsed document.
+   * Collecting metrics adds a small cost to every parse step, so no 
+   * metrics are collected unless a listener has been set.
+   */
+  void setParseListener(ParseListener listener);
+  
+  /**
+   * Returns the maximum number of feed entries to read, or -1 if there is 
+   * no limit
+   */
+  int getEntryLimit();
+  
+  /**
+   * Sets the maximum number of feed entries to read.  Once the limit has 
+   * been reached the parser stops reading, closes the input and completes 
+   * the document as it stands.  A negative limit removes the limit.
+   */
+  void setEntryLimit(int limit);
+  
+  /**
+   * Returns the instant before which feed entries are not read, or null
+   */
+  Date getUpdatedSince();
+  
+  /**
+   * Stops the parse at the first feed entry whose updated date is before 
+   * the given instant.  That entry and those following it are left out of
+   * the document, and the input is closed.
+   */
+  void setUpdatedSince(Date instant);
+  
+  /**
+   * Returns the filter used to stop the parse at a known feed entry
+   */
+  StopFilter getStopFilter();
+  
+  /**
+   * Stops the parse at the first feed entry for whose id the filter 
+   * returns true.  That entry and those following it are left out of the
+   * document, and the input is closed.
+   */
+  void setStopFilter(StopFilter filter);
+  
   boolean getAutodetectCharset();
   
   void setAutodetectCharset(boolean detect);
   
+  /**
+   * Returns true if gzip and zlib compressed input is detected
+   */
+  boolean getAutodetectCompression();
+  
+  /**
+   * When true, the parser checks InputStream input for the gzip and zlib 
+   * magic numbers and decompresses it on the fly, so that compressed 
+   * documents can be passed to the parser as they are stored or received.
+   */
+  void setAutodetectCompression(boolean detect);
+  
   void setIgnoreDoctype(boolean ignore);
   void setIgnoreComments(boolean ignore);
   void setIgnoreWhitespace(boolean ignore);
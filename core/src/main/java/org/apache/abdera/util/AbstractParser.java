@@ -17,10 +17,19 @@
 */
 package org.apache.abdera.util;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
@@ -91,6 +100,90 @@ public abstract class AbstractParser
     return parse(in, new URI(base), options);
   }
   
+  public <T extends Element>Document<T> parse(
+    ByteBuffer buf) 
+      throws ParseException {
+    return parse(buf, (URI)null, getDefaultParserOptions());
+  }
+
+  public <T extends Element>Document<T> parse(
+    ByteBuffer buf, 
+    URI base) 
+      throws ParseException {
+    return parse(buf, base, getDefaultParserOptions());
+  }
+  
+  public <T extends Element>Document<T> parse(
+    FileChannel channel) 
+      throws ParseException {
+    return parse(channel, (URI)null, getDefaultParserOptions());
+  }
+  
+  public <T extends Element>Document<T> parse(
+    File file) 
+      throws ParseException {
+    return parse(file, file.toURI(), getDefaultParserOptions());
+  }
+  
+  public <T extends Element>List<Future<Document<T>>> parseAll(
+    Iterable<? extends InputStream> in,
+    ExecutorService executor) {
+      return parseAll(in, (URI)null, null, executor);
+  }
+  
+  public <T extends Element>List<Future<Document<T>>> parseAll(
+    Iterable<? extends InputStream> in,
+    URI base,
+    ParserOptions options,
+    ExecutorService executor) {
+      List<Future<Document<T>>> results = new ArrayList<Future<Document<T>>>();
+      for (InputStream stream : in) {
+        Callable<Document<T>> task = new ParseTask<T>(stream, base, options);
+        results.add(executor.submit(task));
+      }
+      return results;
+  }
+  
+  /**
+   * Called by parseAll from the worker thread once a document has been 
+   * parsed.  Parsers that build documents lazily should read the rest of 
+   * the document here.
+   */
+  protected void complete(Document<?> document) {}
+  
+  private ParserOptions copyOptions(ParserOptions options) {
+    if (options == null) return getDefaultParserOptions();
+    return (options instanceof AbstractParserOptions) ? 
+      (ParserOptions)((AbstractParserOptions)options).clone() : options;
+  }
+  
+  private class ParseTask<T extends Element> 
+    implements Callable<Document<T>> {
+      private final InputStream in;
+      private final URI base;
+      private final ParserOptions options;
+      ParseTask(InputStream in, URI base, ParserOptions options) {
+        this.in = in;
+        this.base = base;
+        this.options = options;
+      }
+      public Document<T> call() throws ParseException {
+        try {
+          Document<T> document = parse(in, base, copyOptions(options));
+          complete(document);
+          return document;
+        } catch (ParseException e) {
+          throw e;
+        } catch (RuntimeException e) {
+          throw new ParseException(e);
+        } finally {
+          try {
+            in.close();
+          } catch (IOException e) {}
+        }
+      }
+  }
+  
   public abstract ParserOptions getDefaultParserOptions();
   
 }
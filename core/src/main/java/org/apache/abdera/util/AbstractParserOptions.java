@@ -17,19 +17,38 @@
 */
 package org.apache.abdera.util;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.filter.ParseFilter;
+import org.apache.abdera.filter.StopFilter;
 import org.apache.abdera.filter.TextFilter;
+import org.apache.abdera.parser.ParseListener;
 import org.apache.abdera.parser.ParserOptions;
 
 public abstract class AbstractParserOptions 
-  implements ParserOptions {
+  implements ParserOptions, Cloneable {
 
   protected Factory factory = null;
   protected String charset = null;
   protected ParseFilter parseFilter = null;
   protected TextFilter textFilter = null;
+  protected Set<QName> projection = null;
+  protected boolean lazycontent = false;
+  protected boolean internvalues = false;
+  protected SymbolTable symbolTable = null;
+  protected ParseListener listener = null;
+  protected int entrylimit = -1;
+  protected Date updatedsince = null;
+  protected StopFilter stopFilter = null;
   protected boolean detect = false;
+  protected boolean detectcompression = false;
   protected boolean ignoredtd = false;
   protected boolean ignorecomments = false;
   protected boolean ignorepi = false;
@@ -71,6 +90,74 @@ public abstract class AbstractParserOptions
     this.textFilter = textFilter;
   }
   
+  public Set<QName> getProjection() {
+    return projection;
+  }
+  
+  public void setProjection(QName... fields) {
+    this.projection = (fields != null && fields.length > 0) ?
+      Collections.unmodifiableSet(new HashSet<QName>(Arrays.asList(fields))) :
+      null;
+  }
+  
+  public boolean getLazyContent() {
+    return this.lazycontent;
+  }
+  
+  public void setLazyContent(boolean lazy) {
+    this.lazycontent = lazy;
+  }
+  
+  public boolean getInternValues() {
+    return this.internvalues;
+  }
+  
+  public void setInternValues(boolean intern) {
+    this.internvalues = intern;
+  }
+  
+  public SymbolTable getSymbolTable() {
+    return this.symbolTable;
+  }
+  
+  public void setSymbolTable(SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+    if (symbolTable != null) this.internvalues = true;
+  }
+  
+  public ParseListener getParseListener() {
+    return this.listener;
+  }
+  
+  public void setParseListener(ParseListener listener) {
+    this.listener = listener;
+  }
+  
+  public int getEntryLimit() {
+    return this.entrylimit;
+  }
+  
+  public void setEntryLimit(int limit) {
+    this.entrylimit = (limit < 0) ? -1 : limit;
+  }
+  
+  public Date getUpdatedSince() {
+    return (this.updatedsince != null) ? 
+      (Date) this.updatedsince.clone() : null;
+  }
+  
+  public void setUpdatedSince(Date instant) {
+    this.updatedsince = (instant != null) ? (Date) instant.clone() : null;
+  }
+  
+  public StopFilter getStopFilter() {
+    return this.stopFilter;
+  }
+  
+  public void setStopFilter(StopFilter filter) {
+    this.stopFilter = filter;
+  }
+  
   public boolean getAutodetectCharset() {
     return this.detect;
   }
@@ -79,6 +166,14 @@ public abstract class AbstractParserOptions
     this.detect = detect;
   }
   
+  public boolean getAutodetectCompression() {
+    return this.detectcompression;
+  }
+  
+  public void setAutodetectCompression(boolean detect) {
+    this.detectcompression = detect;
+  }
+  
   public void setIgnoreDoctype(boolean ignore) {
     this.ignoredtd = ignore;
   }
@@ -103,4 +198,16 @@ public abstract class AbstractParserOptions
   public boolean getIgnoreProcessingInstructions() {
     return this.ignorepi;
   }
+
+  /**
+   * Returns a copy of these options. Filters and the factory are shared 
+   * with the copy.
+   */
+  public Object clone() {
+    try {
+      return super.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new InternalError(e.getMessage()); // unreachable
+    }
+  }
 }
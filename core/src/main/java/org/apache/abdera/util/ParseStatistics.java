@@ -0,0 +1,252 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.abdera.parser.ParseListener;
+import org.apache.abdera.parser.ParseMetrics;
+
+/**
+ * A ParseListener that aggregates the metrics of every document it is told
+ * about into running totals and latency histograms.  A single instance can
+ * be shared by any number of parsers and threads; the values it returns 
+ * are suitable for periodic export to a monitoring system.
+ */
+public class ParseStatistics 
+  extends ParseListener {
+
+  private final AtomicLong documents = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong bytesRead = new AtomicLong();
+  private final AtomicLong elementsBuilt = new AtomicLong();
+  private final AtomicLong elementsDropped = new AtomicLong();
+  private final AtomicLong attributesDropped = new AtomicLong();
+  private final AtomicLong textFiltered = new AtomicLong();
+  private final ConcurrentMap<String,AtomicLong> charsets = 
+    new ConcurrentHashMap<String,AtomicLong>();
+  private final Histogram wallTime = new Histogram();
+  private final Histogram cpuTime = new Histogram();
+  
+  @Override
+  public void parsed(ParseMetrics metrics) {
+    documents.incrementAndGet();
+    record(metrics);
+  }
+  
+  @Override
+  public void failed(ParseMetrics metrics, Throwable error) {
+    failures.incrementAndGet();
+    record(metrics);
+  }
+  
+  private void record(ParseMetrics metrics) {
+    if (metrics.getBytesRead() > 0)
+      bytesRead.addAndGet(metrics.getBytesRead());
+    elementsBuilt.addAndGet(metrics.getElementsBuilt());
+    elementsDropped.addAndGet(metrics.getElementsDropped());
+    attributesDropped.addAndGet(metrics.getAttributesDropped());
+    textFiltered.addAndGet(metrics.getTextFiltered());
+    String charset = metrics.getCharset();
+    if (charset != null) {
+      charset = charset.toUpperCase();
+      AtomicLong count = charsets.get(charset);
+      if (count == null) {
+        count = new AtomicLong();
+        AtomicLong existing = charsets.putIfAbsent(charset, count);
+        if (existing != null) count = existing;
+      }
+      count.incrementAndGet();
+    }
+    wallTime.record(metrics.getWallTime());
+    if (metrics.getCpuTime() >= 0)
+      cpuTime.record(metrics.getCpuTime());
+  }
+  
+  /**
+   * Returns the number of documents parsed successfully
+   */
+  public long getDocuments() {
+    return documents.get();
+  }
+  
+  /**
+   * Returns the number of documents that failed to parse
+   */
+  public long getFailures() {
+    return failures.get();
+  }
+  
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+  
+  public long getElementsBuilt() {
+    return elementsBuilt.get();
+  }
+  
+  public long getElementsDropped() {
+    return elementsDropped.get();
+  }
+  
+  public long getAttributesDropped() {
+    return attributesDropped.get();
+  }
+  
+  public long getTextFiltered() {
+    return textFiltered.get();
+  }
+  
+  /**
+   * Returns the number of documents decoded using each character set
+   */
+  public Map<String,Long> getCharsets() {
+    Map<String,Long> map = new HashMap<String,Long>();
+    for (Map.Entry<String,AtomicLong> entry : charsets.entrySet())
+      map.put(entry.getKey(), entry.getValue().get());
+    return Collections.unmodifiableMap(map);
+  }
+  
+  /**
+   * Returns the distribution of the time spent parsing each document
+   */
+  public Histogram getWallTime() {
+    return wallTime;
+  }
+  
+  /**
+   * Returns the distribution of the CPU time spent parsing each document
+   */
+  public Histogram getCpuTime() {
+    return cpuTime;
+  }
+  
+  /**
+   * Clears all of the counters and histograms
+   */
+  public void reset() {
+    documents.set(0);
+    failures.set(0);
+    bytesRead.set(0);
+    elementsBuilt.set(0);
+    elementsDropped.set(0);
+    attributesDropped.set(0);
+    textFiltered.set(0);
+    charsets.clear();
+    wallTime.reset();
+    cpuTime.reset();
+  }
+  
+  /**
+   * A histogram of nanosecond durations.  Bucket zero counts durations 
+   * shorter than one microsecond (1024ns); each following bucket covers 
+   * twice the range of the one before it, and the last bucket counts 
+   * everything that remains.
+   */
+  public static final class Histogram {
+    
+    public static final int BUCKETS = 32;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      counts.incrementAndGet(bucket(nanos));
+      count.incrementAndGet();
+      total.addAndGet(nanos);
+      long current = max.get();
+      while (nanos > current && !max.compareAndSet(current, nanos))
+        current = max.get();
+    }
+    
+    private static int bucket(long nanos) {
+      int bucket = 54 - Long.numberOfLeadingZeros(nanos);
+      return (bucket < 0) ? 0 : (bucket >= BUCKETS) ? BUCKETS - 1 : bucket;
+    }
+    
+    /**
+     * Returns the exclusive upper bound, in nanoseconds, of the given bucket
+     */
+    public static long getUpperBound(int bucket) {
+      return (bucket >= BUCKETS - 1) ? Long.MAX_VALUE : 1L << (bucket + 10);
+    }
+    
+    /**
+     * Returns a copy of the bucket counts
+     */
+    public long[] getCounts() {
+      long[] values = new long[BUCKETS];
+      for (int n = 0; n < BUCKETS; n++) 
+        values[n] = counts.get(n);
+      return values;
+    }
+    
+    public long getCount() {
+      return count.get();
+    }
+    
+    public long getTotal() {
+      return total.get();
+    }
+    
+    public long getMax() {
+      return max.get();
+    }
+    
+    public long getMean() {
+      long n = count.get();
+      return (n > 0) ? total.get() / n : 0;
+    }
+    
+    /**
+     * Returns an upper estimate of the given percentile (between 0 and 
+     * 100), accurate to within a factor of two
+     */
+    public long getPercentile(double percentile) {
+      long[] values = getCounts();
+      long n = 0;
+      for (long value : values) n += value;
+      if (n == 0) return 0;
+      long rank = (long) Math.ceil(n * percentile / 100);
+      long seen = 0;
+      for (int b = 0; b < BUCKETS; b++) {
+        seen += values[b];
+        if (seen >= rank && seen > 0) 
+          return Math.min(getUpperBound(b), getMax());
+      }
+      return getMax();
+    }
+    
+    void reset() {
+      for (int n = 0; n < BUCKETS; n++) 
+        counts.set(n, 0);
+      count.set(0);
+      total.set(0);
+      max.set(0);
+    }
+  }
+}
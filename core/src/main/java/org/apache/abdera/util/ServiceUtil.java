@@ -24,6 +24,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.abdera.factory.ExtensionFactory;
 import org.apache.abdera.factory.Factory;
@@ -36,7 +37,7 @@ public final class ServiceUtil
 
   ServiceUtil() {}
 
-  static private ClassLoader classLoader = null;
+  static private volatile ClassLoader classLoader = null;
   
   public static Object newInstance(String id, String _default) {
     return ServiceUtil.locate(id, _default);
@@ -61,10 +62,12 @@ public final class ServiceUtil
   }
   
   public static ClassLoader getClassLoader() {
-    if (classLoader == null) {
-      classLoader = Thread.currentThread().getContextClassLoader();
+    ClassLoader loader = classLoader;
+    if (loader == null) {
+      loader = Thread.currentThread().getContextClassLoader();
+      classLoader = loader;
     }
-    return classLoader;
+    return loader;
   }
 
   public static void setClassLoader(ClassLoader classLoader) {
@@ -115,14 +118,27 @@ public final class ServiceUtil
     return object;
   }
 
-  private static List<ExtensionFactory> factories = null;
+  private static volatile List<ExtensionFactory> factories = null;
   
+  /**
+   * Returns the ExtensionFactory implementations registered via 
+   * META-INF/services.  The list is loaded once and may be read from
+   * multiple threads.
+   */
   public static List<ExtensionFactory> loadExtensionFactories() {
-    if (factories == null) {
-      factories = _loadimpls(
-        "META-INF/services/org.apache.abdera.factory.ExtensionFactory");
+    List<ExtensionFactory> list = factories;
+    if (list == null) {
+      synchronized(ServiceUtil.class) {
+        list = factories;
+        if (list == null) {
+          list = new CopyOnWriteArrayList<ExtensionFactory>(
+            ServiceUtil.<ExtensionFactory>_loadimpls(
+              "META-INF/services/org.apache.abdera.factory.ExtensionFactory"));
+          factories = list;
+        }
+      }
     }
-    return factories;
+    return list;
   }
   
   @SuppressWarnings("unchecked")
@@ -0,0 +1,103 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.abdera.model.Link;
+
+/**
+ * A table of canonical string instances used by the parser to share 
+ * repeated attribute values and short text values (link relations, 
+ * category terms, content types, language tags and the like).  A feed 
+ * with a thousand entries typically carries the same handful of values 
+ * thousands of times; interning them keeps a single copy of each and 
+ * allows values to be compared by identity before falling back to equals.
+ * 
+ * <p>The table is seeded with the well-known Atom values so that, for 
+ * instance, a parsed rel="alternate" is the very same instance as 
+ * Link.REL_ALTERNATE.  A table may be scoped to a single parse or shared 
+ * by several parsers and threads.  Values longer than the maximum length
+ * are never interned and the table stops growing once it reaches its 
+ * maximum size, so unique values (ids, dates) cannot make it grow without 
+ * bound.</p>
+ */
+public class SymbolTable {
+
+  public static final int DEFAULT_MAX_LENGTH = 64;
+  public static final int DEFAULT_MAX_SIZE = 4096;
+
+  private static final String[] WELL_KNOWN = {
+    Link.REL_ALTERNATE, Link.REL_CURRENT, Link.REL_ENCLOSURE, 
+    Link.REL_FIRST, Link.REL_LAST, Link.REL_NEXT, Link.REL_PAYMENT,
+    Link.REL_PREVIOUS, Link.REL_RELATED, Link.REL_SELF, Link.REL_VIA,
+    Link.REL_REPLIES, Link.REL_LICENSE, Link.REL_EDIT, Link.REL_EDIT_MEDIA,
+    "text", "html", "xhtml", "xml", "en", "en-US", "yes", "no",
+    "application/atom+xml", "application/atom+xml;type=entry", 
+    "application/atom+xml;type=feed", "application/atomsvc+xml", 
+    "application/atomcat+xml", "application/xhtml+xml", "application/xml",
+    "text/html", "text/plain", "text/xml", "image/png", "image/jpeg", 
+    "image/gif"
+  };
+
+  private final ConcurrentMap<String,String> symbols;
+  private final int maxLength;
+  private final int maxSize;
+
+  public SymbolTable() {
+    this(DEFAULT_MAX_LENGTH, DEFAULT_MAX_SIZE);
+  }
+
+  public SymbolTable(int maxLength, int maxSize) {
+    this.maxLength = maxLength;
+    this.maxSize = maxSize;
+    this.symbols = new ConcurrentHashMap<String,String>(
+      Math.max(16, Math.min(maxSize, 256)));
+    for (String symbol : WELL_KNOWN) 
+      symbols.put(symbol, symbol);
+  }
+
+  /**
+   * Returns the canonical instance of the given value.  Values that are 
+   * too long to intern, or that arrive once the table is full, are 
+   * returned as is.
+   */
+  public String intern(String value) {
+    if (value == null || value.length() > maxLength) return value;
+    String symbol = symbols.get(value);
+    if (symbol != null) return symbol;
+    if (symbols.size() >= maxSize) return value;
+    symbol = symbols.putIfAbsent(value, value);
+    return (symbol != null) ? symbol : value;
+  }
+
+  /**
+   * Returns the longest value that will be interned
+   */
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * Returns the number of canonical values currently held by the table
+   */
+  public int size() {
+    return symbols.size();
+  }
+}
@@ -70,4 +70,22 @@ public class CoreTest extends TestCase {
     Date parsed = atomNow.getDate();
     assertEquals(now, parsed);
   }
+  
+  public static void testAtomDateFormats() {
+    long time = 1071340202000L;
+    assertEquals(time, AtomDate.parse("2003-12-13T18:30:02Z").getTime());
+    assertEquals(time, AtomDate.parse("2003-12-13t18:30:02z").getTime());
+    assertEquals(time + 250, AtomDate.parse("2003-12-13T18:30:02.25Z").getTime());
+    assertEquals(time - 3600000, AtomDate.parse("2003-12-13T18:30:02+01:00").getTime());
+    assertEquals(time + 5400000, AtomDate.parse("2003-12-13T18:30:02-0130").getTime());
+    assertEquals(time - 2000, AtomDate.parse("2003-12-13T18:30Z").getTime());
+    assertEquals(1071273600000L, AtomDate.parse("2003-12-13").getTime());
+    assertEquals(time + 28800000, AtomDate.parse("2003-12-13T18:30:02PST").getTime());
+    assertEquals("2003-12-13T18:30:02.000Z", AtomDate.format(new Date(time)));
+    assertEquals("1970-01-01T00:00:00.000Z", AtomDate.format(new Date(0)));
+    try {
+      AtomDate.parse("junk");
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+  }
 }
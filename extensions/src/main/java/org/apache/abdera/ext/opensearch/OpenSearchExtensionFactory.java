@@ -17,67 +17,74 @@
 */
 package org.apache.abdera.ext.opensearch;
 
-import org.apache.abdera.factory.ExtensionFactory;
-import org.apache.abdera.factory.Factory;
-import org.apache.abdera.parser.stax.FOMExtensionFactory;
-import org.apache.abdera.model.Element;
-import org.apache.abdera.model.Base;
-import org.apache.abdera.ext.opensearch.impl.FOMTotalResults;
+import javax.xml.namespace.QName;
+
 import org.apache.abdera.ext.opensearch.impl.FOMItemsPerPage;
 import org.apache.abdera.ext.opensearch.impl.FOMStartIndex;
-
+import org.apache.abdera.ext.opensearch.impl.FOMTotalResults;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.stax.AbstractFOMExtensionFactory;
+import org.apache.abdera.parser.stax.FOMExtensionConstructor;
 import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMXMLParserWrapper;
 
-import javax.xml.namespace.QName;
-import java.util.List;
-import java.util.ArrayList;
-
-public class OpenSearchExtensionFactory implements ExtensionFactory, FOMExtensionFactory {
-  public boolean handlesNamespace(String ns)
-  {
-    return OpenSearchConstants.OPENSEARCH_NS.equals(ns);
-  }
-
-  public List<String> getNamespaces()
-  {
-    List<String> lst = new ArrayList<String>();
-    lst.add(OpenSearchConstants.OPENSEARCH_NS);
-    return lst;
-  }
-
-  @SuppressWarnings("unchecked")
-  public <T extends Element> T newExtensionElement(QName qname,
-                                                   Base base,
-                                                   Factory factory)
-  {
-    return (T) newExtensionElement(qname, base, factory, null);
-  }
-
-  @SuppressWarnings("unchecked")
-  public <T extends Element> T newExtensionElement(QName qname,
-                                                   Base base,
-                                                   Factory factory,
-                                                   OMXMLParserWrapper parserWrapper)
-  {
-    OMContainer cbase = (OMContainer) base;
-    OMFactory cfactory = (OMFactory) factory;
-    if (OpenSearchConstants.TOTAL_RESULTS.equals(qname)) {
-      return (parserWrapper != null) ?
-        (T) new FOMTotalResults(qname, cbase, cfactory, parserWrapper) :
-        (T) new FOMTotalResults(qname, cbase, cfactory);
-    }
-    else if (OpenSearchConstants.ITEMS_PER_PAGE.equals(qname)) {
-      return (parserWrapper != null) ?
-        (T) new FOMItemsPerPage(qname, cbase, cfactory, parserWrapper) :
-        (T) new FOMItemsPerPage(qname, cbase, cfactory);
-    }
-    else if (OpenSearchConstants.START_INDEX.equals(qname)) {
-      return (parserWrapper != null) ?
-        (T) new FOMStartIndex(qname, cbase, cfactory, parserWrapper) :
-        (T) new FOMStartIndex(qname, cbase, cfactory);
-    }
-    return null;
+public class OpenSearchExtensionFactory 
+  extends AbstractFOMExtensionFactory {
+  
+  public OpenSearchExtensionFactory() {
+    super(OpenSearchConstants.OPENSEARCH_NS);
+    addConstructor(
+      OpenSearchConstants.TOTAL_RESULTS, 
+      new FOMExtensionConstructor() {
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory) {
+            return new FOMTotalResults(qname, parent, factory);
+        }
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory, 
+          OMXMLParserWrapper parserWrapper) {
+            return new FOMTotalResults(qname, parent, factory, parserWrapper);
+        }
+      });
+    addConstructor(
+      OpenSearchConstants.ITEMS_PER_PAGE, 
+      new FOMExtensionConstructor() {
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory) {
+            return new FOMItemsPerPage(qname, parent, factory);
+        }
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory, 
+          OMXMLParserWrapper parserWrapper) {
+            return new FOMItemsPerPage(qname, parent, factory, parserWrapper);
+        }
+      });
+    addConstructor(
+      OpenSearchConstants.START_INDEX, 
+      new FOMExtensionConstructor() {
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory) {
+            return new FOMStartIndex(qname, parent, factory);
+        }
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory, 
+          OMXMLParserWrapper parserWrapper) {
+            return new FOMStartIndex(qname, parent, factory, parserWrapper);
+        }
+      });
   }
+  
 }
@@ -18,71 +18,55 @@
 package org.apache.abdera.ext.thread;
 
 import javax.xml.namespace.QName;
-import java.util.List;
-import java.util.ArrayList;
 
 import org.apache.abdera.ext.thread.impl.FOMInReplyTo;
 import org.apache.abdera.ext.thread.impl.FOMTotal;
-import org.apache.abdera.factory.ExtensionFactory;
-import org.apache.abdera.factory.Factory;
-import org.apache.abdera.model.Base;
 import org.apache.abdera.model.Element;
-import org.apache.abdera.parser.stax.FOMExtensionFactory;
+import org.apache.abdera.parser.stax.AbstractFOMExtensionFactory;
+import org.apache.abdera.parser.stax.FOMExtensionConstructor;
 import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMXMLParserWrapper;
 
 public class ThreadExtensionFactory 
-  implements ExtensionFactory,
-    FOMExtensionFactory {
+  extends AbstractFOMExtensionFactory {
 
-  public boolean handlesNamespace(String namespace) {
-    return (ThreadConstants.THR_NS.equals(namespace));
-  }
-
-  public List<String> getNamespaces() {
-    List<String> lst = new ArrayList<String>();
-    lst.add(ThreadConstants.THR_NS);
-    return lst;
-  }
-
-  @SuppressWarnings("unchecked")
-  public <T extends Element> T newExtensionElement(
-    QName qname,
-    Base parent, 
-    Factory factory) {
-      if (ThreadConstants.IN_REPLY_TO.equals(qname)) 
-        return (T)new FOMInReplyTo(
-          qname, 
-          (OMContainer)parent, 
-          (OMFactory)factory);
-      else if (ThreadConstants.THRTOTAL.equals(qname))
-        return (T)new FOMTotal(
-          qname, 
-          (OMContainer)parent, 
-          (OMFactory)factory);
-      else return null;
-  }
-
-  @SuppressWarnings("unchecked")
-  public <T extends Element> T newExtensionElement(
-    QName qname,
-    Base parent, 
-    Factory factory, 
-    OMXMLParserWrapper parserWrapper) {
-      if (ThreadConstants.IN_REPLY_TO.equals(qname)) 
-        return (T)new FOMInReplyTo(
-          qname, 
-          (OMContainer)parent, 
-          (OMFactory)factory,
-          parserWrapper);
-      else if (ThreadConstants.THRTOTAL.equals(qname))
-        return (T)new FOMTotal(
-          qname, 
-          (OMContainer)parent, 
-          (OMFactory)factory,
-          parserWrapper);
-      else return null;
+  public ThreadExtensionFactory() {
+    super(ThreadConstants.THR_NS);
+    addConstructor(
+      ThreadConstants.IN_REPLY_TO, 
+      new FOMExtensionConstructor() {
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory) {
+            return new FOMInReplyTo(qname, parent, factory);
+        }
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory, 
+          OMXMLParserWrapper parserWrapper) {
+            return new FOMInReplyTo(qname, parent, factory, parserWrapper);
+        }
+      });
+    addConstructor(
+      ThreadConstants.THRTOTAL, 
+      new FOMExtensionConstructor() {
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory) {
+            return new FOMTotal(qname, parent, factory);
+        }
+        public Element newInstance(
+          QName qname, 
+          OMContainer parent, 
+          OMFactory factory, 
+          OMXMLParserWrapper parserWrapper) {
+            return new FOMTotal(qname, parent, factory, parserWrapper);
+        }
+      });
   }
 
 }
@@ -0,0 +1,101 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera.factory.Factory;
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Element;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+
+/**
+ * Base class for FOM extension factories.  Subclasses declare the namespaces
+ * they handle and register one FOMExtensionConstructor per extension element
+ * from their constructor; creating an element then costs a single lookup 
+ * and a direct constructor call.
+ */
+public abstract class AbstractFOMExtensionFactory 
+  implements FOMExtensionFactory {
+
+  private final List<String> namespaces;
+  private final Map<QName,FOMExtensionConstructor> constructors = 
+    new HashMap<QName,FOMExtensionConstructor>();
+  
+  protected AbstractFOMExtensionFactory(String... namespaces) {
+    List<String> list = new ArrayList<String>();
+    for (String namespace : namespaces) list.add(namespace);
+    this.namespaces = Collections.unmodifiableList(list);
+  }
+  
+  /**
+   * Registers the constructor used to create the given extension element 
+   */
+  protected void addConstructor(
+    QName qname, 
+    FOMExtensionConstructor constructor) {
+      constructors.put(qname, constructor);
+  }
+  
+  public boolean handlesNamespace(String namespace) {
+    return namespaces.contains(namespace);
+  }
+
+  public List<String> getNamespaces() {
+    return namespaces;
+  }
+  
+  @SuppressWarnings("unchecked")
+  public <T extends Element> T newExtensionElement(
+    QName qname, 
+    Base parent, 
+    Factory factory) {
+      FOMExtensionConstructor constructor = constructors.get(qname);
+      return (constructor != null) ? 
+        (T) constructor.newInstance(
+          qname, 
+          (OMContainer)parent, 
+          (OMFactory)factory) : 
+        null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Element> T newExtensionElement(
+    QName qname, 
+    Base parent, 
+    Factory factory, 
+    OMXMLParserWrapper parserWrapper) {
+      FOMExtensionConstructor constructor = constructors.get(qname);
+      return (constructor != null) ? 
+        (T) constructor.newInstance(
+          qname, 
+          (OMContainer)parent, 
+          (OMFactory)factory, 
+          parserWrapper) : 
+        null;
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.activation.DataHandler;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.abdera.parser.stax.util.Base64Codec;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.om.impl.llom.OMTextImpl;
+
+/**
+ * A binary text node backed by a DataHandler.  When serialized (other than
+ * as an MTOM attachment) the data is read from the DataHandler and written
+ * as Base64 a block at a time, rather than being encoded into a single 
+ * String first.
+ */
+public class FOMBase64Text 
+  extends OMTextImpl {
+
+  private static final int BLOCK = 3 * 1024;
+  
+  public FOMBase64Text(DataHandler dataHandler, OMFactory factory) {
+    super(dataHandler, true, factory);
+  }
+  
+  /**
+   * Writes the data to the stream as is, without encoding it
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    ((DataHandler)getDataHandler()).writeTo(out);
+  }
+  
+  @Override
+  public void internalSerialize(XMLStreamWriter writer) 
+    throws XMLStreamException {
+      if (isAttachment(writer)) super.internalSerialize(writer);
+      else writeEncoded(writer);
+  }
+  
+  @Override
+  public void internalSerializeAndConsume(XMLStreamWriter writer) 
+    throws XMLStreamException {
+      if (isAttachment(writer)) super.internalSerializeAndConsume(writer);
+      else writeEncoded(writer);
+  }
+  
+  private boolean isAttachment(XMLStreamWriter writer) {
+    return isOptimized() && 
+      writer instanceof MTOMXMLStreamWriter && 
+      ((MTOMXMLStreamWriter)writer).isOptimized();
+  }
+  
+  private void writeEncoded(XMLStreamWriter writer) 
+    throws XMLStreamException {
+      byte[] bytes = new byte[BLOCK];
+      char[] chars = new char[BLOCK / 3 * 4];
+      try {
+        InputStream in = ((DataHandler)getDataHandler()).getInputStream();
+        try {
+          int n;
+          while ((n = fill(in, bytes)) > 0) {
+            writer.writeCharacters(chars, 0, Base64Codec.encode(bytes, 0, n, chars, 0));
+            if (n < bytes.length) break;
+          }
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        throw new XMLStreamException(e);
+      }
+  }
+  
+  /**
+   * Reads until the buffer is full or the stream is exhausted, so that 
+   * every block but the last is a multiple of three bytes
+   */
+  private static int fill(InputStream in, byte[] buf) throws IOException {
+    int n = 0;
+    while (n < buf.length) {
+      int r = in.read(buf, n, buf.length - n);
+      if (r == -1) break;
+      n += r;
+    }
+    return n;
+  }
+}
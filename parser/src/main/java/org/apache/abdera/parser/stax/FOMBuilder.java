@@ -17,23 +17,36 @@
 */
 package org.apache.abdera.parser.stax;
 
+import java.io.Closeable;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.filter.ParseFilter;
+import org.apache.abdera.filter.StopFilter;
 import org.apache.abdera.filter.TextFilter;
 import org.apache.abdera.model.Content;
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.IRI;
+import org.apache.abdera.model.Source;
 import org.apache.abdera.model.Text;
 import org.apache.abdera.parser.ParserOptions;
+import org.apache.abdera.parser.stax.util.FOMStAXFactoryPool;
+import org.apache.abdera.parser.stax.util.RetainingReader;
 import org.apache.abdera.util.Constants;
+import org.apache.abdera.util.SymbolTable;
 import org.apache.axiom.om.OMConstants;
 import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMDocument;
@@ -42,6 +55,7 @@ import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.OMText;
+import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.OMContainerEx;
 import org.apache.axiom.om.impl.OMNodeEx;
 import org.apache.axiom.om.impl.builder.StAXOMBuilder;
@@ -56,7 +70,13 @@ public class FOMBuilder
   private Document fomDocument = null;
   private ParserOptions parserOptions = null;
   private int depth = 0;
-  private int depthInSkipElement = 0;
+  private RetainingReader retainedInput = null;
+  private SymbolTable symbols = null;
+  private FOMParseMetrics metrics = null;
+  private Closeable input = null;
+  private int entries = 0;
+  private int captured = 0;
+  private Date updatedSince = null;
   
   public FOMBuilder(
     FOMFactory factory, 
@@ -158,6 +178,55 @@ public class FOMBuilder
     return parserOptions;
   }
   
+  /**
+   * Returns the XMLOutputFactory selected by the parser options of the given
+   * builder, or the shared default if the builder has no FOMParserOptions
+   */
+  static XMLOutputFactory getXMLOutputFactory(OMXMLParserWrapper builder) {
+    ParserOptions options = (builder instanceof FOMBuilder) ? 
+      ((FOMBuilder)builder).getParserOptions() : null;
+    return (options instanceof FOMParserOptions) ? 
+      ((FOMParserOptions)options).getXMLOutputFactory() : 
+      FOMStAXFactoryPool.getOutputFactory();
+  }
+  
+  /**
+   * Sets the retained copy of the input.  When set, the bodies of XHTML and
+   * XML content elements and XHTML text elements are captured as ranges of
+   * the input rather than being built.
+   */
+  void setRetainedInput(RetainingReader retainedInput) {
+    this.retainedInput = retainedInput;
+  }
+  
+  /**
+   * Sets the input the document is read from, which is closed if the 
+   * parse is stopped early
+   */
+  void setInput(Closeable input) {
+    this.input = input;
+  }
+  
+  /**
+   * Closes the stream reader once the document has been read and drops the
+   * references to the input.  The input itself belongs to the caller and 
+   * is left open
+   */
+  void release() {
+    try {
+      parser.close();
+    } catch (XMLStreamException e) {}
+    input = null;
+    retainedInput = null;
+  }
+  
+  /**
+   * Sets the metrics collected while the document is parsed
+   */
+  void setMetrics(FOMParseMetrics metrics) {
+    this.metrics = metrics;
+  }
+  
   @Override
   protected OMNode createOMElement() throws OMException {
     depth++;
@@ -223,37 +292,253 @@ public class FOMBuilder
       TextFilter filter = parserOptions.getTextFilter();
       if (filter != null) {
         String value = parser.getText();
-        if (!lastNode.isComplete())
-          value = filter.filterText(value, (Element)lastNode);
-        return createOMText(value, type);
+        if (!lastNode.isComplete()) {
+          String filtered = filter.filterText(value, (Element)lastNode);
+          if (metrics != null && !value.equals(filtered)) metrics.textFiltered++;
+          value = filtered;
+        }
+        return createOMText(intern(value), type);
       }
+      SymbolTable symbols = getSymbolTable();
+      if (symbols != null && parser.getTextLength() <= symbols.getMaxLength())
+        return createOMText(symbols.intern(parser.getText()), type);
     }
     return createOMText(type);
   }
   
+  /**
+   * Returns the table used to intern values during this parse, or null if
+   * values are not being interned
+   */
+  private SymbolTable getSymbolTable() {
+    if (symbols == null && 
+        parserOptions != null && 
+        parserOptions.getInternValues()) {
+      symbols = parserOptions.getSymbolTable();
+      if (symbols == null) symbols = new SymbolTable();
+    }
+    return symbols;
+  }
+  
+  private String intern(String value) {
+    SymbolTable symbols = getSymbolTable();
+    return (symbols != null) ? symbols.intern(value) : value;
+  }
+  
   private String applyAttributeTextFilter(String value, QName attribute, Element parent) {
     if (parserOptions != null) { 
       TextFilter filter = parserOptions.getTextFilter();
       if (filter != null) {
-        return filter.filterAttributeText(value, attribute, parent);
+        String filtered = filter.filterAttributeText(value, attribute, parent);
+        if (metrics != null && !value.equals(filtered)) metrics.textFiltered++;
+        return filtered;
       }
     }
     return value;
   }
   
   private int getNextElementToParse() 
-    throws XMLStreamException{
+    throws XMLStreamException {
+      ParseFilter filter = null;
+      Set<QName> projection = null;
+      if (parserOptions != null) {
+        filter = parserOptions.getParseFilter();
+        projection = parserOptions.getProjection();
+      }
       int token = parser.next();
-      if (depthInSkipElement == 0 && token != XMLStreamConstants.START_ELEMENT){
-        return token;         
-      } else if (token == XMLStreamConstants.START_ELEMENT && isAcceptableToParse(parser.getName(), false) && depthInSkipElement == 0){
-        return token;
-      } else if (token == XMLStreamConstants.START_ELEMENT ){      
-        depthInSkipElement++; 
-      } else if (token == XMLStreamConstants.END_ELEMENT ){ // otherwise skip like crazy      
-        depthInSkipElement--;
-      }   
-      return getNextElementToParse();
+      if (filter == null && projection == null) return token;
+      while (token == XMLStreamConstants.START_ELEMENT) {
+        QName qname = parser.getName();
+        if ((filter == null || filter.acceptable(qname)) && 
+            (projection == null || isProjected(qname, projection))) 
+          break;
+        int skipped = skipElement();
+        if (metrics != null) metrics.elementsDropped += skipped;
+        token = parser.next();
+      }
+      return token;
+  }
+  
+  /**
+   * Returns true if the element about to be built is within the projection.
+   * The projection only applies to the direct children of feed, entry and 
+   * source elements
+   */
+  private boolean isProjected(QName qname, Set<QName> projection) {
+    OMContainer parent = null;
+    if (lastNode == null) return true;
+    else if (lastNode.isComplete()) parent = lastNode.getParent();
+    else parent = (OMContainer) lastNode;
+    if (parent instanceof Source || parent instanceof Entry) {
+      return projection.contains(qname) || 
+        (parent instanceof Feed && ENTRY.equals(qname));
+    }
+    return true;
+  }
+  
+  private boolean isLazyContent(OMNode node) {
+    if (node instanceof FOMContent) {
+      Content.Type type = ((FOMContent)node).getContentType();
+      return type == Content.Type.XHTML || type == Content.Type.XML;
+    }
+    return node instanceof FOMText && 
+      ((FOMText)node).getTextType() == Text.Type.XHTML;
+  }
+  
+  /**
+   * Reads past the body of the current element, recording the range of 
+   * the input it occupies, and completes the element.  Nothing is read if
+   * the start of the body cannot be located, and the element is then 
+   * built as usual
+   */
+  private void captureBody(FOMElement element) 
+    throws XMLStreamException {
+      int start = startOfBody();
+      if (start < 0) return;
+      int token = parser.next();
+      int nested = 0;
+      boolean empty = true;
+      while (nested > 0 || token != XMLStreamConstants.END_ELEMENT) {
+        if (token == XMLStreamConstants.START_ELEMENT) nested++;
+        else if (token == XMLStreamConstants.END_ELEMENT) nested--;
+        empty = false;
+        token = parser.next();
+      }
+      if (!empty) {
+        int end = retainedInput.findEndTag(start);
+        if (end < 0) throw new OMException(
+          "Unable to locate the end of the " + element.getLocalName() + " element");
+        element.setRawBody(retainedInput, start, end);
+        captured = end;
+      }
+      endElement();
+  }
+  
+  /**
+   * Returns the offset in the retained input just past the start tag of 
+   * the current element, or -1 if it cannot be located.  StAX 
+   * implementations differ in where the reported character offset of an 
+   * event lies: Woodstox reports where the event starts, the BEA reference
+   * implementation where it ends.  Both are accepted, but only if the tag 
+   * found there has the name and attribute values of the current element.
+   * Woodstox 2 may also report offsets that are simply wrong, which is why
+   * the tag is checked at all and why offsets before the last captured 
+   * body are rejected
+   */
+  private int startOfBody() {
+    int offset = parser.getLocation().getCharacterOffset();
+    if (offset < captured || offset > retainedInput.length()) return -1;
+    if (isStartTag(offset)) return retainedInput.endOfTag(offset);
+    int tag = retainedInput.lastIndexOf('<', offset);
+    if (tag >= captured && isStartTag(tag) && 
+        retainedInput.endOfTag(tag) == offset)
+      return offset;
+    return -1;
+  }
+  
+  /**
+   * Returns true if the start tag of the current element begins at the 
+   * given offset of the retained input
+   */
+  private boolean isStartTag(int offset) {
+    String prefix = parser.getPrefix();
+    String name = (prefix != null && prefix.length() > 0) ? 
+      prefix + ":" + parser.getLocalName() : parser.getLocalName();
+    if (!retainedInput.startsWith("<" + name, offset)) return false;
+    int end = retainedInput.endOfTag(offset);
+    if (end < 0) return false;
+    char c = retainedInput.getChars()[offset + name.length() + 1];
+    if (c != '>' && c != '/' && !Character.isWhitespace(c)) return false;
+    String tag = retainedInput.substring(offset, end);
+    for (int n = 0; n < parser.getAttributeCount(); n++)
+      if (tag.indexOf(parser.getAttributeValue(n)) < 0) return false;
+    return true;
+  }
+  
+  /**
+   * Returns true if the element about to be built is an entry of a feed
+   */
+  private boolean isFeedEntry() {
+    if (parserOptions == null || !ENTRY.equals(parser.getName())) return false;
+    OMContainer parent = null;
+    if (lastNode == null) return false;
+    else if (lastNode.isComplete()) parent = lastNode.getParent();
+    else parent = (OMContainer) lastNode;
+    return parent instanceof Feed;
+  }
+  
+  private boolean isEntryLimitReached() {
+    int limit = parserOptions.getEntryLimit();
+    return limit >= 0 && entries >= limit;
+  }
+  
+  /**
+   * Reads the whole of the given feed entry and returns true if the parse 
+   * should stop at it
+   */
+  private boolean isStopEntry(OMElement element) {
+    StopFilter filter = parserOptions.getStopFilter();
+    if (updatedSince == null) updatedSince = parserOptions.getUpdatedSince();
+    if (filter == null && updatedSince == null) return false;
+    while (!element.isComplete() && !done) nextToken();
+    Entry entry = (Entry) element;
+    if (filter != null) {
+      IRI id = entry.getIdElement();
+      if (id != null && filter.stopAt(id.getText().trim())) return true;
+    }
+    if (updatedSince != null) {
+      Date updated = entry.getUpdated();
+      if (updated != null && updated.before(updatedSince)) return true;
+    }
+    return false;
+  }
+  
+  /**
+   * Stops the parse.  Any feed entry that is being read is removed, the
+   * open elements are completed and the input is closed
+   */
+  private int stop() {
+    OMNode entry = null;
+    if (lastNode instanceof Entry && lastNode.getParent() instanceof Feed) {
+      entry = lastNode;
+      lastNode = (OMNode) entry.getParent();
+    }
+    OMContainer container = (lastNode == null) ? null :
+      (lastNode.isComplete()) ? lastNode.getParent() : (OMContainer) lastNode;
+    while (container instanceof OMElement) {
+      ((OMNodeEx)container).setComplete(true);
+      container = ((OMElement)container).getParent();
+    }
+    done = true;
+    ((OMContainerEx) this.document).setComplete(true);
+    // detach only once the feed is complete so that nothing more is read
+    if (entry != null) entry.detach();
+    try {
+      parser.close();
+    } catch (XMLStreamException e) {}
+    if (input != null) {
+      try {
+        input.close();
+      } catch (IOException e) {}
+    }
+    return XMLStreamConstants.END_DOCUMENT;
+  }
+  
+  /**
+   * Skips the current element and all of its content, returning the 
+   * number of elements skipped
+   */
+  private int skipElement() 
+    throws XMLStreamException {
+      int depth = 1, skipped = 1;
+      while (depth > 0) {
+        int token = parser.next();
+        if (token == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          skipped++;
+        } else if (token == XMLStreamConstants.END_ELEMENT) depth--;
+      }
+      return skipped;
   }
   
   /**
@@ -263,6 +548,25 @@ public class FOMBuilder
    * @throws OMException
    */
   public int next() throws OMException {
+    if (metrics == null) return nextToken();
+    boolean timing = metrics.start();
+    int token;
+    try {
+      token = nextToken();
+    } catch (RuntimeException e) {
+      if (timing) metrics.stop();
+      metrics.failed(e);
+      throw e;
+    }
+    if (timing) metrics.stop();
+    // the document is reported once the root element has been read
+    if (token == XMLStreamConstants.END_DOCUMENT || 
+        (token == XMLStreamConstants.END_ELEMENT && depth == 0)) 
+      metrics.parsed();
+    return token;
+  }
+  
+  private int nextToken() throws OMException {
     try {
         if (done) {
             throw new OMException();
@@ -273,7 +577,15 @@ public class FOMBuilder
         }
         switch (token) {
             case XMLStreamConstants.START_ELEMENT:
+                boolean entry = isFeedEntry();
+                if (entry && isEntryLimitReached()) return stop();
                 lastNode = createOMElement();
+                if (retainedInput != null && isLazyContent(lastNode))
+                  captureBody((FOMElement)lastNode);
+                if (entry && lastNode instanceof Entry) {
+                  if (isStopEntry((OMElement)lastNode)) return stop();
+                  entries++;
+                }
                 break;
             case XMLStreamConstants.START_DOCUMENT:
                 document.setXMLVersion(
@@ -351,6 +663,7 @@ public class FOMBuilder
     if (element != null) {
       this.processNamespaceData(element);
       processAttributes(element);
+      if (metrics != null) metrics.elementsBuilt++;
     }
     return element;
   }
@@ -373,11 +686,13 @@ public class FOMBuilder
                 namespace = node.declareNamespace(uri, prefix);
             }
         }
-        String value = applyAttributeTextFilter(
+        String value = intern(applyAttributeTextFilter(
           parser.getAttributeValue(i), 
-          attr, (Element)node);
+          attr, (Element)node));
         node.addAttribute(parser.getAttributeLocalName(i),
                 value, namespace);
+      } else if (metrics != null) {
+        metrics.attributesDropped++;
       }
     }
 }
@@ -107,8 +107,7 @@ public class FOMCategory
   }
 
   public URI getScheme() throws URISyntaxException {
-    String value = getAttributeValue(SCHEME);
-    return (value != null) ? new URI(value) : null;
+    return _getUriAttributeValue(SCHEME);
   }
 
   public void setScheme(String scheme) throws URISyntaxException {
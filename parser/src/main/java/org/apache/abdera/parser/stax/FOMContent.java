@@ -17,8 +17,12 @@
 */
 package org.apache.abdera.parser.stax;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 import javax.activation.DataHandler;
 import javax.activation.MimeType;
@@ -30,6 +34,7 @@ import org.apache.abdera.factory.Factory;
 import org.apache.abdera.model.Content;
 import org.apache.abdera.model.Div;
 import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.stax.util.Base64Codec;
 import org.apache.abdera.util.Constants;
 import org.apache.axiom.attachments.DataHandlerUtils;
 import org.apache.axiom.om.OMContainer;
@@ -37,6 +42,8 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMText;
 import org.apache.axiom.om.OMXMLParserWrapper;
 
 public class FOMContent 
@@ -59,6 +66,7 @@ public class FOMContent
     OMFactory factory)
       throws OMException {
     super(name, namespace, parent, factory);
+    init(type);
   }
   
   public FOMContent(
@@ -140,12 +148,9 @@ public class FOMContent
 
   public MimeType getMimeType() {
     MimeType type = null;
-    String mimeType = getAttributeValue(TYPE);
-    if (mimeType != null) {
-      try {
-        type = new MimeType(mimeType);
-      } catch (Exception e) {}
-    }
+    try {
+      type = _getMimeTypeAttributeValue(TYPE);
+    } catch (Exception e) {}
     return type;
   }
   
@@ -157,7 +162,7 @@ public class FOMContent
   }
 
   public URI getSrc() throws URISyntaxException {
-    return _getUriValue(getAttributeValue(SRC));
+    return _getUriAttributeValue(SRC);
   }
 
   public URI getResolvedSrc() throws URISyntaxException {
@@ -199,7 +204,31 @@ public class FOMContent
       } catch (Exception e) {}
     }
     _removeAllChildren();
-    addChild(factory.createOMText(dataHandler, true));
+    addChild(new FOMBase64Text(dataHandler, factory));
+  }
+  
+  public void writeDecodedTo(OutputStream out) throws IOException {
+    if (!Type.MEDIA.equals(type)) 
+      throw new UnsupportedOperationException(
+        "Only supported on media content entries");
+    if (getAttributeValue(SRC) != null) {
+      getDataHandler().writeTo(out);
+      return;
+    }
+    Base64Codec decoder = new Base64Codec(out);
+    for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      if (node instanceof FOMBase64Text) {
+        decoder.finish();
+        ((FOMBase64Text)node).writeTo(out);
+      } else if (node instanceof OMText) {
+        decoder.decode(((OMText)node).getText());
+      }
+    }
+    decoder.finish();
+  }
+  
+  public void writeDecodedTo(WritableByteChannel channel) throws IOException {
+    writeDecodedTo(Channels.newOutputStream(channel));
   }
   
   public String getValue() {
@@ -93,11 +93,20 @@ public class FOMDateTime
     super(qname, parent, factory, builder);
   }
   
+  /**
+   * AtomDate is mutable, so the parsed date is cached and each call
+   * returns a new AtomDate for it
+   */
   public AtomDate getValue() {
     AtomDate value = null;
     String v = getText();
     if (v != null) {
-      value = AtomDate.valueOf(v);
+      Date date = (Date) _getCachedValue(TEXT_VALUE, v);
+      if (date == null) {
+        date = AtomDate.parse(v);
+        _setCachedValue(TEXT_VALUE, v, date);
+      }
+      value = AtomDate.valueOf(date.getTime());
     }
     return value;
   }
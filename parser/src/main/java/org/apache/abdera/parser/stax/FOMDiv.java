@@ -22,7 +22,6 @@ import java.net.URI;
 import java.util.Iterator;
 
 import javax.xml.namespace.QName;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.abdera.factory.Factory;
@@ -138,7 +137,7 @@ public class FOMDiv
     try {
       ByteArrayOutputStream out = new ByteArrayOutputStream();
       XMLStreamWriter writer = 
-        XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        getXMLOutputFactory().createXMLStreamWriter(out);
       writer.writeStartElement("");
       for (Iterator nodes = this.getChildren(); nodes.hasNext();) {
         OMNode node = (OMNode) nodes.next();
@@ -27,11 +27,13 @@ import java.util.Iterator;
 
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.stax.snapshot.Snapshot;
 import org.apache.axiom.om.OMComment;
 import org.apache.axiom.om.OMDocType;
 import org.apache.axiom.om.OMDocument;
@@ -43,7 +45,6 @@ import org.apache.axiom.om.OMProcessingInstruction;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
 import org.apache.axiom.om.impl.llom.OMDocumentImpl;
-import org.apache.axiom.om.util.StAXUtils;
 
 
 public class FOMDocument<T extends Element> 
@@ -54,6 +55,7 @@ public class FOMDocument<T extends Element>
   protected URI base = null;
   protected MimeType contentType = null;
   protected Date lastModified = null;
+  private volatile boolean readOnly = false;
 
   public FOMDocument() {
     super();
@@ -94,14 +96,35 @@ public class FOMDocument<T extends Element>
   }
 
   public void setRoot(T root) {
+    checkWritable();
     this.setOMDocumentElement((OMElement) root);
   }
 
+  /**
+   * Reads the rest of the document from the builder
+   */
+  void build() {
+    OMXMLParserWrapper builder = 
+      (documentElement != null) ? documentElement.getBuilder() : null;
+    while (builder != null && !builder.isCompleted())
+      builder.next();
+  }
+  
+  /**
+   * Returns the XMLOutputFactory selected by the options this document 
+   * was parsed with
+   */
+  XMLOutputFactory getXMLOutputFactory() {
+    return FOMBuilder.getXMLOutputFactory(
+      (documentElement != null) ? documentElement.getBuilder() : parserWrapper);
+  }
+  
   public URI getBaseUri() {
     return base;
   }
 
   public void setBaseUri(String base) throws URISyntaxException {
+    checkWritable();
     this.base = new URI(base);
   }
 
@@ -116,7 +139,7 @@ public class FOMDocument<T extends Element>
         outputFormat.setCharSetEncoding(this.getCharsetEncoding());
       MTOMXMLStreamWriter omwriter = 
         new MTOMXMLStreamWriter(
-          StAXUtils.createXMLStreamWriter(writer));
+          getXMLOutputFactory().createXMLStreamWriter(writer));
       omwriter.setOutputFormat(outputFormat);
       this.internalSerialize(omwriter);
       omwriter.flush();    
@@ -130,6 +153,7 @@ public class FOMDocument<T extends Element>
   }
   
   public void setContentType(String contentType) throws MimeTypeParseException {
+    checkWritable();
     this.contentType = new MimeType(contentType);
     if (this.contentType.getParameter("charset") != null)
       setCharset(this.contentType.getParameter("charset"));
@@ -140,6 +164,7 @@ public class FOMDocument<T extends Element>
   }
   
   public void setLastModified(Date lastModified) {
+    checkWritable();
     this.lastModified = lastModified;
   }
   
@@ -176,6 +201,7 @@ public class FOMDocument<T extends Element>
   }
 
   public void setCharset(String charset) {
+    checkWritable();
     this.setCharsetEncoding(charset);
   }
 
@@ -183,4 +209,45 @@ public class FOMDocument<T extends Element>
     return (Factory) this.factory;
   }
   
+  public Document<T> freeze() {
+    return Snapshot.freeze(this);
+  }
+  
+  /**
+   * Reads the rest of the document, parses any lazily captured content, 
+   * builds the child indexes and releases the stream reader.  From then on 
+   * the tree is never changed, so any number of threads can read it
+   */
+  public synchronized Document<T> complete() {
+    if (readOnly) return this;
+    build();
+    OMXMLParserWrapper builder = (parserWrapper != null) ? parserWrapper :
+      (documentElement != null) ? documentElement.getBuilder() : null;
+    if (builder instanceof FOMBuilder) ((FOMBuilder)builder).release();
+    parserWrapper = null;
+    for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      if (node instanceof FOMElement) ((FOMElement)node).makeReadOnly();
+    }
+    readOnly = true;
+    return this;
+  }
+  
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+  
+  @Override
+  public void addChild(OMNode node) {
+    checkWritable();
+    super.addChild(node);
+  }
+  
+  private void checkWritable() {
+    if (readOnly) throw readOnlyError();
+  }
+  
+  static UnsupportedOperationException readOnlyError() {
+    return new UnsupportedOperationException("The document is read-only");
+  }
+  
 }
@@ -21,15 +21,28 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.activation.MimeType;
+import javax.activation.MimeTypeParameterList;
+import javax.activation.MimeTypeParseException;
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.model.Base;
@@ -37,10 +50,12 @@ import org.apache.abdera.model.Content;
 import org.apache.abdera.model.Div;
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
+import org.apache.abdera.model.Link;
 import org.apache.abdera.model.Text;
 import org.apache.abdera.parser.Parser;
 import org.apache.abdera.parser.ParserOptions;
 import org.apache.abdera.parser.stax.util.FOMList;
+import org.apache.abdera.parser.stax.util.RetainingReader;
 import org.apache.abdera.util.Constants;
 import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.OMComment;
@@ -54,7 +69,10 @@ import org.apache.axiom.om.OMOutputFormat;
 import org.apache.axiom.om.OMProcessingInstruction;
 import org.apache.axiom.om.OMText;
 import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.om.impl.OMNodeEx;
 import org.apache.axiom.om.impl.llom.OMElementImpl;
+import org.apache.axiom.om.impl.util.OMSerializerUtil;
 
 public class FOMElement 
   extends OMElementImpl 
@@ -106,6 +124,7 @@ public class FOMElement
   }
   
   public void setParentElement(Element parent) {
+    _checkWritable();
     super.setParent((FOMElement)parent);
   }
 
@@ -172,7 +191,7 @@ public class FOMElement
   }
 
   public URI getBaseUri() throws URISyntaxException {
-    URI uri = _getUriValue(getAttributeValue(BASE));
+    URI uri = _getUriAttributeValue(BASE);
     if (uri == null) {
       if (parent instanceof Element) {
         uri = ((Element)parent).getBaseUri();
@@ -184,22 +203,72 @@ public class FOMElement
   }
 
   public URI getResolvedBaseUri() throws URISyntaxException {
+    return _resolveBase(_getInheritedBaseUri());
+  }
+  
+  protected URI _getInheritedBaseUri() throws URISyntaxException {
     URI baseUri = null;
-    URI uri = _getUriValue(getAttributeValue(BASE));
     if (parent instanceof Element) 
       baseUri = ((Element)parent).getResolvedBaseUri();
     else if (parent instanceof Document)
       baseUri = ((Document)parent).getBaseUri();
-    if (uri != null && baseUri != null) {
-      if (baseUri != null) {
-        uri = baseUri.resolve(uri);
-      } else {
-        return getBaseUri();
+    return baseUri;
+  }
+  
+  /**
+   * The result of resolving this element's xml:base against the base
+   * inherited from its parent
+   */
+  private static final class ResolvedBase {
+    private final URI inherited;
+    private final URI base;
+    private final URI resolved;
+    ResolvedBase(URI inherited, URI base, URI resolved) {
+      this.inherited = inherited;
+      this.base = base;
+      this.resolved = resolved;
+    }
+  }
+  
+  private transient ResolvedBase resolvedBase = null;
+  
+  /**
+   * Resolves this element's xml:base against the inherited base URI.  The
+   * parsed xml:base and the resolved result are both cached, and the result
+   * is reused for as long as the same inherited URI instance and the same
+   * xml:base value come in.  A change to xml:base anywhere up the tree, a 
+   * new document base or a move to a new parent yields a different 
+   * inherited instance and therefore a fresh resolution
+   */
+  protected URI _resolveBase(URI inherited) throws URISyntaxException {
+    URI uri = _getUriAttributeValue(BASE);
+    if (uri == null) return inherited;
+    if (inherited == null) return uri;
+    ResolvedBase rb = resolvedBase;
+    if (rb != null && rb.inherited == inherited && rb.base == uri) 
+      return rb.resolved;
+    URI resolved = inherited.resolve(uri);
+    resolvedBase = new ResolvedBase(inherited, uri, resolved);
+    return resolved;
+  }
+  
+  /**
+   * Collects the resolved href of every link in this element and in any 
+   * entry or source it contains, resolving each xml:base only once
+   */
+  protected void _resolveHrefs(
+    URI inherited, 
+    Map<Link,URI> hrefs) 
+      throws URISyntaxException {
+    URI base = _resolveBase(inherited);
+    for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      if (node instanceof FOMLink) {
+        FOMLink link = (FOMLink) node;
+        hrefs.put(link, _resolve(link._resolveBase(base), link.getHref()));
+      } else if (node instanceof FOMEntry || node instanceof FOMSource) {
+        ((FOMElement)node)._resolveHrefs(base, hrefs);
       }
-    } else if (uri == null) {
-      uri = baseUri;
     }
-    return uri;    
   }
   
   public void setBaseUri(URI base) {
@@ -216,6 +285,8 @@ public class FOMElement
   }
   
   public void setAttributeValue(QName qname, String value) {
+    _checkWritable();
+    _clearCachedValue(qname);
     OMAttribute attr = this.getAttribute(qname);
     if (attr != null && value != null) {
       attr.setAttributeValue(value);
@@ -262,6 +333,107 @@ public class FOMElement
     return (v != null) ? new URI(v) : null;
   }
   
+  /**
+   * The parsed form of a value, kept together with the string it was parsed
+   * from.  Keys are attribute QNames or TEXT_VALUE for the element text.
+   * The list is never modified in place, so readers on other threads see 
+   * either the old list or the new one once a document is read-only
+   */
+  private static final class CachedValue {
+    private final Object key;
+    private final String source;
+    private final Object value;
+    private final CachedValue next;
+    CachedValue(Object key, String source, Object value, CachedValue next) {
+      this.key = key;
+      this.source = source;
+      this.value = value;
+      this.next = next;
+    }
+  }
+  
+  protected static final Object TEXT_VALUE = new Object();
+  
+  private transient CachedValue cachedValues = null;
+  
+  /**
+   * Returns the value previously cached for the key if it was parsed from
+   * the given string.  Because the source string is compared on every call,
+   * a cached value never outlives a change to the underlying attribute or 
+   * text, however that change was made
+   */
+  protected Object _getCachedValue(Object key, String source) {
+    if (source == null) return null;
+    for (CachedValue c = cachedValues; c != null; c = c.next) {
+      if (c.key.equals(key))
+        return (c.source == source || c.source.equals(source)) ? c.value : null;
+    }
+    return null;
+  }
+  
+  protected void _setCachedValue(Object key, String source, Object value) {
+    CachedValue rest = without(cachedValues, key);
+    cachedValues = (source != null && value != null) ?
+      new CachedValue(key, source, value, rest) : rest;
+  }
+  
+  protected void _clearCachedValue(Object key) {
+    CachedValue values = cachedValues;
+    CachedValue rest = without(values, key);
+    if (rest != values) cachedValues = rest;
+  }
+  
+  private static CachedValue without(CachedValue list, Object key) {
+    if (list == null) return null;
+    if (list.key.equals(key)) return list.next;
+    CachedValue rest = without(list.next, key);
+    return (rest == list.next) ? list : 
+      new CachedValue(list.key, list.source, list.value, rest);
+  }
+  
+  /**
+   * Returns the value of the given attribute as a URI, parsing it only when
+   * the attribute has changed since the last call
+   */
+  protected URI _getUriAttributeValue(QName qname) throws URISyntaxException {
+    String v = getAttributeValue(qname);
+    URI uri = (URI) _getCachedValue(qname, v);
+    if (uri == null && v != null) {
+      uri = new URI(v);
+      _setCachedValue(qname, v, uri);
+    }
+    return uri;
+  }
+  
+  /**
+   * Returns the value of the given attribute as a MimeType.  MimeType is 
+   * mutable, so each call returns a copy of the cached instance
+   */
+  protected MimeType _getMimeTypeAttributeValue(QName qname) 
+    throws MimeTypeParseException {
+      String v = getAttributeValue(qname);
+      MimeType type = (MimeType) _getCachedValue(qname, v);
+      if (type == null) {
+        if (v == null) return null;
+        type = new MimeType(v);
+        _setCachedValue(qname, v, type);
+      }
+      MimeType copy = new MimeType(type.getPrimaryType(), type.getSubType());
+      MimeTypeParameterList params = type.getParameters();
+      for (Enumeration e = params.getNames(); e.hasMoreElements();) {
+        String name = (String) e.nextElement();
+        copy.setParameter(name, params.get(name));
+      }
+      return copy;
+  }
+  
+  @Override
+  public void setText(String text) {
+    _checkWritable();
+    _clearCachedValue(TEXT_VALUE);
+    super.setText(text);
+  }
+  
   protected String _getStringValue(URI uri) {
     return (uri != null) ? uri.toString() : null;
   }
@@ -287,12 +459,30 @@ public class FOMElement
       OMOutputFormat outputFormat = new OMOutputFormat();
       if (getDocument() != null && getDocument().getCharset() != null)
         outputFormat.setCharSetEncoding(getDocument().getCharset());
-      serializeAndConsume(writer, outputFormat);
+      MTOMXMLStreamWriter omwriter = 
+        new MTOMXMLStreamWriter(
+          getXMLOutputFactory().createXMLStreamWriter(writer));
+      omwriter.setOutputFormat(outputFormat);
+      internalSerializeAndConsume(omwriter);
+      omwriter.flush();
     } catch (XMLStreamException e) {
       throw new FOMException(e);
     }
   }
   
+  /**
+   * Returns the XMLOutputFactory selected by the options this element, or
+   * its document, was parsed with
+   */
+  protected XMLOutputFactory getXMLOutputFactory() {
+    if (builder == null) {
+      Document doc = getDocument();
+      if (doc instanceof FOMDocument) 
+        return ((FOMDocument)doc).getXMLOutputFactory();
+    }
+    return FOMBuilder.getXMLOutputFactory(builder);
+  }
+  
   @SuppressWarnings("unchecked")
   public <T extends Element>Document<T> getDocument() {
     Document<T> document = null;
@@ -404,6 +594,21 @@ public class FOMElement
     return text;
   }
   
+  /**
+   * Returns the value of a lone text child as is rather than copying it,
+   * which keeps interned values shared
+   */
+  @Override
+  public String getText() {
+    OMNode child = getFirstOMChild();
+    if (child != null && child.getNextOMSibling() == null) {
+      int type = child.getType();
+      if (type == OMNode.TEXT_NODE || type == OMNode.CDATA_SECTION_NODE)
+        return ((OMText)child).getText();
+    }
+    return super.getText();
+  }
+
   protected String getText(QName qname) {
     Text text = getTextElement(qname);
     return (text != null) ? text.getValue() : null;
@@ -445,16 +650,385 @@ public class FOMElement
     return doc.getRoot();
   }
 
+  private static final class RawBody {
+    private final RetainingReader input;
+    private final int start;
+    private final int end;
+    RawBody(RetainingReader input, int start, int end) {
+      this.input = input;
+      this.start = start;
+      this.end = end;
+    }
+  }
+  
+  private RawBody rawBody = null;
+
+  private static final int INDEX_THRESHOLD = 8;
+  private static final Map<String,OMElement> UNINDEXED =
+    Collections.emptyMap();
+  private transient Map<String,OMElement> childIndex = null;
+
+  /**
+   * Records the range of the retained input that holds the unparsed body of 
+   * this element.  Used by FOMBuilder when lazy content is enabled
+   */
+  void setRawBody(RetainingReader input, int start, int end) {
+    this.rawBody = new RawBody(input, start, end);
+  }
+  
+  /**
+   * Returns true if the body of this element has been captured but not yet
+   * parsed
+   */
+  protected boolean hasRawBody() {
+    return rawBody != null;
+  }
+  
+  /**
+   * Parses the captured body of this element, if any, and adds the result 
+   * as the children of this element
+   */
+  protected void materialize() {
+    RawBody body = rawBody;
+    if (body == null) return;
+    rawBody = null;
+    StringBuffer buf = new StringBuffer("<body");
+    for (Map.Entry<String,String> ns : getInScopeNamespaces().entrySet()) {
+      buf.append(ns.getKey().length() > 0 ? " xmlns:" + ns.getKey() : " xmlns");
+      buf.append("=\"").append(escapeAttribute(ns.getValue())).append('"');
+    }
+    buf.append('>').append(body.input.getChars(), body.start, body.end - body.start);
+    buf.append("</body>");
+    FOMFactory fomfactory = (FOMFactory) factory;
+    Parser parser = fomfactory.newParser();
+    ParserOptions options = parser.getDefaultParserOptions();
+    options.setFactory(fomfactory);
+    Document doc = parser.parse(new StringReader(buf.toString()), (URI)null, options);
+    OMElement wrapper = (OMElement) doc.getRoot();
+    wrapper.build();
+    List<OMNode> children = new ArrayList<OMNode>();
+    for (Iterator i = wrapper.getChildren(); i.hasNext();) 
+      children.add((OMNode) i.next());
+    for (OMNode child : children) super.addChild(child);
+  }
+  
+  /**
+   * Returns the namespace declarations in scope for this element, 
+   * nearest declaration first
+   */
+  private Map<String,String> getInScopeNamespaces() {
+    Map<String,String> namespaces = new HashMap<String,String>();
+    for (OMContainer c = this; c instanceof OMElement; c = ((OMElement)c).getParent()) {
+      for (Iterator i = ((OMElement)c).getAllDeclaredNamespaces(); i.hasNext();) {
+        OMNamespace ns = (OMNamespace) i.next();
+        String prefix = ns.getPrefix() != null ? ns.getPrefix() : "";
+        String uri = ns.getName() != null ? ns.getName() : "";
+        if (prefix.length() > 0 && uri.length() == 0) continue;
+        if (!namespaces.containsKey(prefix)) 
+          namespaces.put(prefix, uri);
+      }
+    }
+    return namespaces;
+  }
+  
+  private static String escapeAttribute(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+  }
+  
+  @Override
+  public OMNode getFirstOMChild() {
+    materialize();
+    return super.getFirstOMChild();
+  }
+  
+  /**
+   * Prepares this element and its descendants for concurrent reads: lazy
+   * content is parsed, child indexes are built and the references to the 
+   * builder are dropped.  Called by FOMDocument.complete()
+   */
+  void makeReadOnly() {
+    materialize();
+    builder = null;
+    childIndex = indexChildren();
+    for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      if (node instanceof FOMElement) ((FOMElement)node).makeReadOnly();
+    }
+  }
+  
+  /**
+   * Throws UnsupportedOperationException if this element belongs to a 
+   * document that has been made read-only.  Elements still being read by
+   * the builder are never read-only
+   */
+  protected void _checkWritable() {
+    if (!done) return;
+    OMContainer c = getParent();
+    while (c instanceof OMElement) c = ((OMElement)c).getParent();
+    if (c instanceof FOMDocument && ((FOMDocument)c).isReadOnly())
+      throw FOMDocument.readOnlyError();
+  }
+  
+  @Override
+  public void addChild(OMNode node) {
+    _checkWritable();
+    materialize();
+    childIndex = null;
+    super.addChild(node);
+  }
+  
+  /**
+   * Returns the first child element with the given name.  Once the element
+   * is complete, lookups on an element with many children are answered from
+   * an index of the first child of each name.  The index is built on first
+   * use, or when the document is made read-only, and dropped whenever the
+   * children change.  Like Axiom, names are compared ignoring case, and a
+   * QName without a namespace or local name matches any; such wildcard 
+   * lookups always scan the children
+   */
+  @Override
+  public OMElement getFirstChildWithName(QName qname) throws OMException {
+    if (!isComplete() || isWildcard(qname)) 
+      return super.getFirstChildWithName(qname);
+    Map<String,OMElement> index = childIndex;
+    if (index == null) index = childIndex = indexChildren();
+    if (index == UNINDEXED) return super.getFirstChildWithName(qname);
+    OMElement element = index.get(indexKey(qname));
+    if (element != null && element.getParent() != this) {
+      childIndex = null;
+      return super.getFirstChildWithName(qname);
+    }
+    return element;
+  }
+  
+  private Map<String,OMElement> indexChildren() {
+    Map<String,OMElement> index = new HashMap<String,OMElement>();
+    int count = 0;
+    for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      if (node instanceof OMElement) {
+        OMElement element = (OMElement) node;
+        String key = indexKey(element.getQName());
+        if (!index.containsKey(key)) index.put(key, element);
+        count++;
+      }
+    }
+    return (count < INDEX_THRESHOLD) ? UNINDEXED : 
+      Collections.unmodifiableMap(index);
+  }
+  
+  /**
+   * Axiom's OMChildrenQNameIterator treats a null or empty (the interned 
+   * "") local name or namespace as matching anything
+   */
+  private static boolean isWildcard(QName qname) {
+    return qname == null || 
+      qname.getLocalPart() == null || qname.getLocalPart() == "" ||
+      qname.getNamespaceURI() == null || qname.getNamespaceURI() == "";
+  }
+  
+  /**
+   * Returns a key under which names that String.equalsIgnoreCase considers
+   * equal are the same
+   */
+  private static String indexKey(QName qname) {
+    String ns = qname.getNamespaceURI();
+    return foldCase(ns != null ? ns : "") + '}' + foldCase(qname.getLocalPart());
+  }
+  
+  private static String foldCase(String s) {
+    StringBuffer buf = null;
+    for (int n = 0; n < s.length(); n++) {
+      char c = s.charAt(n);
+      char f = Character.toLowerCase(Character.toUpperCase(c));
+      if (f != c && buf == null) buf = new StringBuffer(s.substring(0, n));
+      if (buf != null) buf.append(f);
+    }
+    return (buf != null) ? buf.toString() : s;
+  }
+  
+  private void invalidateParentIndex() {
+    OMContainer parent = getParent();
+    if (parent instanceof FOMElement) 
+      ((FOMElement)parent).childIndex = null;
+  }
+  
+  /**
+   * Moves the children in order into the positions held by the children in
+   * slots by relinking the sibling chain in place.  Both lists must hold 
+   * the same children of this element in any order, slots in document 
+   * order.  Every other child keeps its position
+   */
+  protected void _reorderChildren(
+    List<?> slots, 
+    List<?> order) {
+      _checkWritable();
+      build();
+      List<OMNode> nodes = new ArrayList<OMNode>();
+      int n = 0;
+      for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) 
+        nodes.add((n < slots.size() && node == slots.get(n)) ? (OMNode) order.get(n++) : node);
+      if (n != slots.size()) 
+        throw new IllegalArgumentException("Not all slots are children of this element");
+      OMNode previous = null;
+      for (OMNode node : nodes) {
+        ((OMNodeEx)node).setPreviousOMSibling(previous);
+        if (previous != null) ((OMNodeEx)previous).setNextOMSibling(node);
+        previous = node;
+      }
+      if (previous != null) ((OMNodeEx)previous).setNextOMSibling(null);
+      firstChild = nodes.isEmpty() ? null : nodes.get(0);
+      lastChild = previous;
+      childIndex = null;
+  }
+  
+  @Override
+  public OMNode detach() throws OMException {
+    _checkWritable();
+    invalidateParentIndex();
+    return super.detach();
+  }
+  
+  @Override
+  public void discard() throws OMException {
+    _checkWritable();
+    invalidateParentIndex();
+    super.discard();
+  }
+  
+  @Override
+  public void insertSiblingBefore(OMNode sibling) throws OMException {
+    _checkWritable();
+    invalidateParentIndex();
+    super.insertSiblingBefore(sibling);
+  }
+  
+  @Override
+  public void insertSiblingAfter(OMNode sibling) throws OMException {
+    _checkWritable();
+    invalidateParentIndex();
+    super.insertSiblingAfter(sibling);
+  }
+  
+  @Override
+  public void setLocalName(String localName) {
+    _checkWritable();
+    invalidateParentIndex();
+    super.setLocalName(localName);
+  }
+  
+  @Override
+  public void setNamespace(OMNamespace namespace) {
+    _checkWritable();
+    invalidateParentIndex();
+    super.setNamespace(namespace);
+  }
+  
+  @Override
+  public void setFirstChild(OMNode node) {
+    _checkWritable();
+    childIndex = null;
+    super.setFirstChild(node);
+  }
+  
+  @Override
+  protected void internalSerialize(
+    XMLStreamWriter writer, 
+    boolean cache) 
+      throws XMLStreamException {
+    if (rawBody != null) {
+      XMLStreamWriter target = (writer instanceof MTOMXMLStreamWriter) ? 
+        ((MTOMXMLStreamWriter)writer).getXmlStreamWriter() : writer;
+      Method writeRaw = getWriteRaw(target.getClass());
+      if (writeRaw != null) {
+        OMSerializerUtil.serializeStartpart(this, writer);
+        NamespaceContext context = writer.getNamespaceContext();
+        for (Map.Entry<String,String> ns : getInScopeNamespaces().entrySet()) {
+          String prefix = ns.getKey();
+          String uri = ns.getValue();
+          if (uri.equals(context.getNamespaceURI(prefix))) continue;
+          if (prefix.length() == 0) {
+            writer.writeDefaultNamespace(uri);
+            writer.setDefaultNamespace(uri);
+          } else {
+            writer.writeNamespace(prefix, uri);
+            writer.setPrefix(prefix, uri);
+          }
+        }
+        try {
+          writeRaw.invoke(target, 
+            rawBody.input.getChars(), 
+            rawBody.start, 
+            rawBody.end - rawBody.start);
+        } catch (InvocationTargetException e) {
+          if (e.getCause() instanceof XMLStreamException)
+            throw (XMLStreamException) e.getCause();
+          writeRaw = null;
+        } catch (Exception e) {
+          writeRawMethods.put(target.getClass(), NO_WRITE_RAW);
+          writeRaw = null;
+        }
+        if (writeRaw == null) {
+          // the start tag is already out, finish with the parsed children
+          materialize();
+          for (OMNode node = getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+            if (cache) ((OMNodeEx)node).internalSerialize(writer);
+            else ((OMNodeEx)node).internalSerializeAndConsume(writer);
+          }
+        }
+        OMSerializerUtil.serializeEndpart(writer);
+        return;
+      }
+      materialize();
+    }
+    super.internalSerialize(writer, cache);
+  }
+  
+  private static final Object NO_WRITE_RAW = new Object();
+  private static final Map<Class<?>,Object> writeRawMethods = 
+    new ConcurrentHashMap<Class<?>,Object>();
+  
+  /**
+   * Returns the public writeRaw(char[],int,int) method of the given writer
+   * class, or null if it has none.  Lookups are cached per class
+   */
+  private static Method getWriteRaw(Class<?> writerClass) {
+    Object method = writeRawMethods.get(writerClass);
+    if (method == null) {
+      try {
+        method = writerClass.getMethod(
+          "writeRaw", char[].class, int.class, int.class);
+      } catch (NoSuchMethodException e) {
+        method = NO_WRITE_RAW;
+      }
+      writeRawMethods.put(writerClass, method);
+    }
+    return (method != NO_WRITE_RAW) ? (Method) method : null;
+  }
+  
   public void removeAttribute(QName qname) {
+    _checkWritable();
     OMAttribute attr = getAttribute(qname);
     if (attr != null) removeAttribute(attr);
   }
   
+  @Override
+  public OMAttribute addAttribute(OMAttribute attr) {
+    _checkWritable();
+    return super.addAttribute(attr);
+  }
+  
+  @Override
+  public void removeAttribute(OMAttribute attr) {
+    _checkWritable();
+    super.removeAttribute(attr);
+  }
+  
   public void removeAttribute(String name) {
+    _checkWritable();
     removeAttribute(getAttribute(new QName(name)));
   }
   
   protected void _removeChildren(QName qname, boolean many) {
+    _checkWritable();
     if (many) {
       for (Iterator i = getChildrenWithName(qname); i.hasNext();) {
         OMElement element = (OMElement) i.next();
@@ -467,6 +1041,7 @@ public class FOMElement
   }
   
   protected void _removeAllChildren() {
+    _checkWritable();
     for (Iterator i = getChildren(); i.hasNext();) {
       OMNode node = (OMNode) i.next();
       node.discard();
@@ -481,14 +1056,23 @@ public class FOMElement
 
   }
   
+  @Override
+  public OMElement cloneOMElement() {
+    return (OMElement) clone();
+  }
+  
   protected OMElement _copyElement(OMElement src, OMElement dest) {
-    for (Iterator i = src.getAllAttributes(); i.hasNext();) {
-      OMAttribute attr = (OMAttribute) i.next();
-      dest.addAttribute(
-        attr.getLocalName(), 
-        attr.getAttributeValue(), 
-        (attr.getNamespace() != null) ? 
-          dest.declareNamespace(attr.getNamespace()) : null);
+    if (src instanceof FOMElement && dest instanceof FOMElement) {
+      _copyTables((FOMElement)src, (FOMElement)dest);
+    } else {
+      for (Iterator i = src.getAllAttributes(); i.hasNext();) {
+        OMAttribute attr = (OMAttribute) i.next();
+        dest.addAttribute(
+          attr.getLocalName(), 
+          attr.getAttributeValue(), 
+          (attr.getNamespace() != null) ? 
+            dest.declareNamespace(attr.getNamespace()) : null);
+      }
     }
     for (Iterator i = src.getChildren(); i.hasNext();) {
       OMNode node = (OMNode) i.next();
@@ -522,16 +1106,52 @@ public class FOMElement
     return dest;
   }
   
+  /**
+   * Copies the namespace declarations and attributes of src onto dest in 
+   * bulk. The namespaces and attribute names of the source are immutable 
+   * and are shared with the copy rather than being looked up again for 
+   * each attribute
+   */
+  @SuppressWarnings("unchecked")
+  private static void _copyTables(FOMElement src, FOMElement dest) {
+    if (src.namespaces != null && !src.namespaces.isEmpty()) {
+      if (dest.namespaces == null) {
+        dest.namespaces = new HashMap(src.namespaces);
+      } else {
+        // the constructor has usually declared the element's own namespace
+        for (Iterator i = src.namespaces.entrySet().iterator(); i.hasNext();) {
+          Map.Entry entry = (Map.Entry) i.next();
+          if (dest.namespaces.get(entry.getKey()) != entry.getValue())
+            dest.namespaces.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    if (src.attributes == null || src.attributes.isEmpty()) return;
+    if (dest.attributes == null) 
+      dest.attributes = new HashMap(src.attributes.size() * 2);
+    OMFactory factory = dest.factory;
+    for (Iterator i = src.attributes.entrySet().iterator(); i.hasNext();) {
+      Map.Entry entry = (Map.Entry) i.next();
+      OMAttribute attr = (OMAttribute) entry.getValue();
+      OMNamespace ns = attr.getNamespace();
+      if (ns != null && ns.getPrefix() != null && ns.getPrefix().length() > 0) {
+        if (dest.namespaces == null) dest.namespaces = new HashMap(5);
+        if (!dest.namespaces.containsKey(ns.getPrefix()))
+          dest.namespaces.put(ns.getPrefix(), ns);
+      }
+      dest.attributes.put(
+        entry.getKey(), 
+        factory.createOMAttribute(
+          attr.getLocalName(), ns, attr.getAttributeValue()));
+    }
+  }
+  
   protected OMElement _create(OMElement src) {
-    OMElement el = null;
-        
     FOMFactory fomfactory = (FOMFactory)factory;
     Object obj = null;
     if (src instanceof Content) obj = ((Content)src).getContentType();
     if (src instanceof Text) obj = ((Text)src).getTextType();
-    el = fomfactory.createElement(src.getQName(), null, factory, obj);
-    
-    return el;
+    return fomfactory.createCopy(src, obj);
   }
 
   
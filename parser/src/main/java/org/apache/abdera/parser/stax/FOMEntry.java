@@ -43,6 +43,7 @@ import org.apache.abdera.model.Person;
 import org.apache.abdera.model.Source;
 import org.apache.abdera.model.Text;
 import org.apache.abdera.model.Content.Type;
+import org.apache.abdera.parser.stax.snapshot.Snapshot;
 import org.apache.abdera.parser.stax.util.FOMHelper;
 import org.apache.abdera.util.Constants;
 import org.apache.abdera.util.URIHelper;
@@ -653,4 +654,8 @@ public class FOMEntry
     return (text != null) ? text.getTextType() : null;
   }
 
+  public Entry freeze() {
+    return Snapshot.freeze((Entry)this);
+  }
+
 }
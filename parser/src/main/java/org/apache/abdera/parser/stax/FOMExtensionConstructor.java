@@ -0,0 +1,53 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera.model.Element;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+
+/**
+ * Creates instances of a single extension element implementation. 
+ * Registering a constructor with FOMFactory.registerExtension or with an
+ * AbstractFOMExtensionFactory lets the factory create extension elements
+ * with a direct call rather than through reflection.
+ */
+public interface FOMExtensionConstructor {
+
+  /**
+   * Creates a new instance of the extension element. If parent is not 
+   * null the new element is added as a child of the parent
+   */
+  Element newInstance(
+    QName qname, 
+    OMContainer parent, 
+    OMFactory factory);
+  
+  /**
+   * Creates a new instance of the extension element while parsing
+   */
+  Element newInstance(
+    QName qname, 
+    OMContainer parent, 
+    OMFactory factory, 
+    OMXMLParserWrapper parserWrapper);
+  
+}
@@ -17,10 +17,15 @@
 */
 package org.apache.abdera.parser.stax;
  
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.net.URISyntaxException;
 
 import javax.activation.MimeType;
@@ -65,8 +70,14 @@ public class FOMFactory
   extends OMLinkedListImplFactory 
   implements Factory, Constants, ExtensionFactory, FOMExtensionFactory {
 
-  private Map<QName,Class> extensions = null;
-  private List<ExtensionFactory> factories = null;
+  private final ConcurrentMap<QName,ExtensionConstructor> extensions = 
+    new ConcurrentHashMap<QName,ExtensionConstructor>();
+  private volatile List<ExtensionFactory> factories = null;
+  
+  public FOMFactory() {
+    // the namespace cache is shared by every parse using this factory
+    namespaceTable = new ConcurrentHashMap();
+  }
   
   public Parser newParser() {
     return new FOMParser();
@@ -407,16 +418,43 @@ public class FOMFactory
   }
 
   private List<ExtensionFactory> getExtensionFactories() {
+    List<ExtensionFactory> factories = this.factories;
     if (factories == null) {
-      factories = new ArrayList<ExtensionFactory>(
-        org.apache.abdera.util.ServiceUtil.loadExtensionFactories());
+      synchronized(this) {
+        factories = this.factories;
+        if (factories == null) {
+          factories = new CopyOnWriteArrayList<ExtensionFactory>();
+          factories.add(this);
+          factories.addAll(
+            org.apache.abdera.util.ServiceUtil.loadExtensionFactories());
+          this.factories = factories;
+        }
+      }
     }
-    factories.add(0, this);
     return factories;
   }
   
-  @SuppressWarnings("unchecked")
   public Element newExtensionElement(
+    QName qname,
+    OMContainer parent,
+    OMXMLParserWrapper parserWrapper) {
+    Element element = newTypedExtensionElement(qname, parent, parserWrapper);
+    if (element == null) {
+      if (parserWrapper == null) {
+        element = new FOMElement(qname, (OMContainer)parent, this);
+      } else {
+        element = new FOMElement(qname, (OMContainer)parent, this, parserWrapper);
+      }
+    }
+    return element;
+  }
+  
+  /**
+   * Returns the element created by the first extension factory that 
+   * handles the namespace of the QName, or null
+   */
+  @SuppressWarnings("unchecked")
+  private Element newTypedExtensionElement(
     QName qname,
     OMContainer parent,
     OMXMLParserWrapper parserWrapper) {
@@ -431,13 +469,7 @@ public class FOMFactory
         } else {
           element = factory.newExtensionElement(qname, (Base)parent, this); 
         }
-      }
-    }
-    if (element == null) {
-      if (parserWrapper == null) {
-        element = new FOMElement(qname, (OMContainer)parent, this);
-      } else {
-        element = new FOMElement(qname, (OMContainer)parent, this, parserWrapper);
+        if (element != null) break;
       }
     }
     return element;
@@ -616,154 +648,392 @@ public class FOMFactory
     OMXMLParserWrapper parserWrapper) {
       return new FOMElement(qname,parent,this,parserWrapper);
   }
-  
-  @SuppressWarnings("unchecked")
-  protected OMElement createElement(
+  /**
+   * Creates the FOM implementation of a known element. Each known QName 
+   * maps to one ElementConstructor so that createElement resolves the 
+   * implementation with a single table lookup.
+   */
+  protected static abstract class ElementConstructor {
+    
+    /**
+     * Creates the element while parsing
+     */
+    protected abstract OMElement newElement(
+      FOMFactory factory,
+      QName qname,
+      OMContainer parent,
+      FOMBuilder builder);
+    
+    /**
+     * Creates an empty element when copying an existing one. The
+     * objecttype is the Text.Type or Content.Type of the source element
+     */
+    protected abstract OMElement newElement(
+      OMFactory factory,
+      QName qname,
+      OMNamespace namespace,
+      OMContainer parent,
+      Object objecttype);
+  }
+  
+  private static final Map<String,ElementConstructor> ATOM_ELEMENTS = 
+    new HashMap<String,ElementConstructor>();
+  private static final Map<String,ElementConstructor> APP_ELEMENTS = 
+    new HashMap<String,ElementConstructor>();
+  private static final Map<QName,ElementConstructor> ELEMENTS = 
+    new HashMap<QName,ElementConstructor>();
+  
+  private static void register(QName qname, ElementConstructor constructor) {
+    String ns = qname.getNamespaceURI();
+    if (ATOM_NS.equals(ns)) ATOM_ELEMENTS.put(qname.getLocalPart(), constructor);
+    else if (APP_NS.equals(ns)) APP_ELEMENTS.put(qname.getLocalPart(), constructor);
+    else ELEMENTS.put(qname, constructor);
+  }
+  
+  static {
+    register(FEED, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newFeed(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMFeed(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(SERVICE, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newService(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMService(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(ENTRY, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newEntry(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMEntry(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    ElementConstructor person = new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newPerson(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMPerson(qname.getLocalPart(), namespace, parent, factory);
+      }
+    };
+    register(AUTHOR, person);
+    register(CONTRIBUTOR, person);
+    register(CATEGORY, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newCategory(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMCategory(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(CONTENT, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newContent(qname, builder.getContentType(), parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMContent(qname.getLocalPart(), namespace, (Content.Type) objecttype, parent, factory);
+      }
+    });
+    register(GENERATOR, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newGenerator(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMGenerator(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    ElementConstructor iri = new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newURIElement(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
+      }
+    };
+    register(ICON, iri);
+    register(LOGO, iri);
+    register(URI, iri);
+    register(ID, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newID(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(LINK, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newLink(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMLink(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    ElementConstructor datetime = new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newDateTimeElement(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMDateTime(qname.getLocalPart(), namespace, parent, factory);
+      }
+    };
+    register(PUBLISHED, datetime);
+    register(UPDATED, datetime);
+    ElementConstructor text = new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newText(qname, builder.getTextType(), parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMText((Text.Type) objecttype, qname.getLocalPart(), namespace, parent, factory);
+      }
+    };
+    register(RIGHTS, text);
+    register(SUBTITLE, text);
+    register(SUMMARY, text);
+    register(TITLE, text);
+    register(SOURCE, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newSource(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMSource(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(WORKSPACE, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newWorkspace(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMWorkspace(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(COLLECTION, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newCollection(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMCollection(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    ElementConstructor element = new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newElement(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMElement(qname.getLocalPart(), namespace, parent, factory);
+      }
+    };
+    register(NAME, element);
+    register(EMAIL, element);
+    register(CONTROL, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newControl(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMControl(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+    register(DIV, new ElementConstructor() {
+      protected OMElement newElement(FOMFactory factory, QName qname, OMContainer parent, FOMBuilder builder) {
+        return (OMElement) factory.newDiv(qname, parent, builder);
+      }
+      protected OMElement newElement(OMFactory factory, QName qname, OMNamespace namespace, OMContainer parent, Object objecttype) {
+        return new FOMDiv(qname.getLocalPart(), namespace, parent, factory);
+      }
+    });
+  }
+  
+  /**
+   * Creates registered extension elements. Extension elements are only 
+   * created as children of extensible elements or the document
+   */
+  private class ExtensionConstructor 
+    extends ElementConstructor {
+    
+    private final FOMExtensionConstructor constructor;
+    
+    ExtensionConstructor(FOMExtensionConstructor constructor) {
+      this.constructor = constructor;
+    }
+    
+    FOMExtensionConstructor getConstructor() {
+      return constructor;
+    }
+    
+    private boolean isExtensible(OMContainer parent) {
+      return parent instanceof ExtensibleElement || parent instanceof Document;
+    }
+    
+    protected OMElement newElement(
+      FOMFactory factory, 
       QName qname, 
       OMContainer parent, 
-      OMFactory factory,
+      FOMBuilder builder) {
+        if (!isExtensible(parent)) return null;
+        Element element = 
+          constructor.newInstance(qname, parent, factory, builder);
+        if (element == null) 
+          element = newExtensionElement(qname, parent, builder);
+        return (OMElement) element;
+    }
+    
+    protected OMElement newElement(
+      OMFactory factory, 
+      QName qname, 
+      OMNamespace namespace, 
+      OMContainer parent, 
       Object objecttype) {
-      OMElement element = null;
+        if (!isExtensible(parent)) return null;
+        Element element = 
+          constructor.newInstance(qname, parent, FOMFactory.this);
+        if (element == null) 
+          element = newExtensionElement(qname, parent);
+        return (OMElement) element;
+    }
+  }
+  
+  /**
+   * Adapts an extension class registered through registerExtension(QName,Class).
+   * The constructors are resolved once, when the class is registered
+   */
+  private static class ReflectiveExtensionConstructor 
+    implements FOMExtensionConstructor {
+    
+    private final Constructor constructor;
+    private final Constructor parsingConstructor;
+    
+    ReflectiveExtensionConstructor(Class impl) {
+      constructor = getConstructor(
+        impl, QName.class, OMContainer.class, OMFactory.class);
+      parsingConstructor = getConstructor(
+        impl, QName.class, OMContainer.class, OMFactory.class, OMXMLParserWrapper.class);
+      if (constructor == null && parsingConstructor == null)
+        throw new FOMException(
+          "Extension class " + impl.getName() + " does not have a suitable constructor");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Constructor getConstructor(Class impl, Class... types) {
+      try {
+        return impl.getConstructor(types);
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+    
+    private static Element newInstance(Constructor constructor, Object... args) {
+      if (constructor == null) return null;
+      try {
+        return (Element) constructor.newInstance(args);
+      } catch (InvocationTargetException e) {
+        throw new FOMException(e.getCause());
+      } catch (Exception e) {
+        throw new FOMException(e);
+      }
+    }
+    
+    public Element newInstance(
+      QName qname, 
+      OMContainer parent, 
+      OMFactory factory) {
+        return newInstance(constructor, qname, parent, factory);
+    }
+    
+    public Element newInstance(
+      QName qname, 
+      OMContainer parent, 
+      OMFactory factory, 
+      OMXMLParserWrapper parserWrapper) {
+        return newInstance(parsingConstructor, qname, parent, factory, parserWrapper);
+    }
+  }
+  
+  /**
+   * Returns the constructor for the given QName or null if the element is
+   * neither an Atom, APP or XHTML element known to FOM nor a registered 
+   * extension. The Atom and APP namespaces are looked up by local name.
+   */
+  protected ElementConstructor getElementConstructor(QName qname) {
+    String ns = qname.getNamespaceURI();
+    ElementConstructor constructor = null;
+    if (ATOM_NS.equals(ns)) 
+      constructor = ATOM_ELEMENTS.get(qname.getLocalPart());
+    else if (APP_NS.equals(ns)) 
+      constructor = APP_ELEMENTS.get(qname.getLocalPart());
+    else 
+      constructor = ELEMENTS.get(qname);
+    if (constructor == null && !extensions.isEmpty()) 
+      constructor = extensions.get(qname);
+    return constructor;
+  }
+  
+  protected OMElement createElement(
+    QName qname, 
+    OMContainer parent, 
+    OMFactory factory,
+    Object objecttype) {
       OMNamespace namespace = 
         this.createOMNamespace(
           qname.getNamespaceURI(), 
           qname.getPrefix());
-      if (FEED.equals(qname)) {
-        element = (OMElement) new FOMFeed(qname.getLocalPart(), namespace, parent, factory);
-      } else if (SERVICE.equals(qname)) {
-        element = (OMElement) new FOMService(qname.getLocalPart(), namespace, parent, factory);
-      } else if (ENTRY.equals(qname)) {
-        element = (OMElement) new FOMEntry(qname.getLocalPart(), namespace, parent, factory);
-      } else if (AUTHOR.equals(qname)) {
-        element = (OMElement) new FOMPerson(qname.getLocalPart(), namespace, parent, factory);
-      } else if (CATEGORY.equals(qname)) {
-        element = (OMElement) new FOMCategory(qname.getLocalPart(), namespace, parent, factory);
-      } else if (CONTENT.equals(qname)) {
-        Content.Type type = (Content.Type) objecttype;
-        element = (OMElement) new FOMContent(qname.getLocalPart(), namespace, type, parent, factory);
-      } else if (CONTRIBUTOR.equals(qname)) {
-        element = (OMElement) new FOMPerson(qname.getLocalPart(), namespace, parent, factory);
-      } else if (GENERATOR.equals(qname)) {
-        element = (OMElement) new FOMGenerator(qname.getLocalPart(), namespace, parent, factory);
-      } else if (ICON.equals(qname)) {
-        element = (OMElement) new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
-      } else if (ID.equals(qname)) {
-        element = (OMElement) new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
-      } else if (LOGO.equals(qname)) {
-        element = (OMElement) new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
-      } else if (LINK.equals(qname)) {
-        element = (OMElement) new FOMLink(qname.getLocalPart(), namespace, parent, factory);
-      } else if (PUBLISHED.equals(qname)) {
-        element = (OMElement) new FOMDateTime(qname.getLocalPart(), namespace, parent, factory);
-      } else if (RIGHTS.equals(qname)) {
-        Text.Type type = (Text.Type) objecttype;
-        element = (OMElement) new FOMText(type, qname.getLocalPart(), namespace, parent, factory);
-      } else if (SOURCE.equals(qname)) {
-        element = (OMElement) new FOMSource(qname.getLocalPart(), namespace, parent, factory);
-      } else if (SUBTITLE.equals(qname)) {
-        Text.Type type = (Text.Type) objecttype;
-        element = (OMElement) new FOMText(type, qname.getLocalPart(), namespace, parent, factory);
-      } else if (SUMMARY.equals(qname)) {
-        Text.Type type = (Text.Type) objecttype;
-        element = (OMElement) new FOMText(type, qname.getLocalPart(), namespace, parent, factory);
-      } else if (TITLE.equals(qname)) {
-        Text.Type type = (Text.Type) objecttype;
-        element = (OMElement) new FOMText(type, qname.getLocalPart(), namespace, parent, factory);
-      } else if (UPDATED.equals(qname)) {
-        element = (OMElement) new FOMDateTime(qname.getLocalPart(), namespace, parent, factory);          
-      } else if (WORKSPACE.equals(qname)) {
-        element = (OMElement) new FOMWorkspace(qname.getLocalPart(), namespace, parent, factory);
-      } else if (COLLECTION.equals(qname)) {
-        element = (OMElement) new FOMCollection(qname.getLocalPart(), namespace, parent, factory);
-      } else if (NAME.equals(qname)) {
-        element = (OMElement) new FOMElement(qname.getLocalPart(), namespace, parent, factory);
-      } else if (EMAIL.equals(qname)) {
-        element = (OMElement) new FOMElement(qname.getLocalPart(), namespace, parent, factory);
-      } else if (URI.equals(qname)) {
-        element = (OMElement) new FOMIRI(qname.getLocalPart(), namespace, parent, factory);
-      } else if (CONTROL.equals(qname)) {
-        element = (OMElement) new FOMControl(qname.getLocalPart(), namespace, parent, factory);
-      } else if (DIV.equals(qname)) {
-        element = (OMElement) new FOMDiv(qname.getLocalPart(), namespace, parent, factory);
-      } else if (parent instanceof ExtensibleElement || 
-                 parent instanceof Document) {
-        element = (OMElement) newExtensionElement(qname, parent);
-      }
-      return element;
-    }
+      ElementConstructor constructor = getElementConstructor(qname);
+      if (constructor != null)
+        return constructor.newElement(factory, qname, namespace, parent, objecttype);
+      if (parent instanceof ExtensibleElement || 
+          parent instanceof Document)
+        return (OMElement) newExtensionElement(qname, parent);
+      return null;
+  }
   
-  @SuppressWarnings("unchecked")
+  /**
+   * Creates an empty, unattached element of the same kind as src, reusing
+   * the namespace of the source element. Elements that are neither known
+   * to FOM nor registered extensions are copied as generic extension
+   * elements
+   */
+  protected OMElement createCopy(
+    OMElement src,
+    Object objecttype) {
+      QName qname = src.getQName();
+      ElementConstructor constructor = getElementConstructor(qname);
+      if (constructor != null)
+        return constructor.newElement(this, qname, src.getNamespace(), null, objecttype);
+      Element element = newTypedExtensionElement(qname, null, null);
+      return (element != null) ? 
+        (OMElement) element : 
+        new FOMElement(src.getLocalName(), src.getNamespace(), null, this);
+  }
+
   protected OMElement createElement(
     QName qname, 
     OMContainer parent, 
     FOMBuilder builder) {
-    OMElement element = null;    
-    if (FEED.equals(qname)) {
-      element = (OMElement) newFeed(qname, parent, builder);
-    } else if (SERVICE.equals(qname)) {
-      element = (OMElement) newService(qname, parent, builder);
-    } else if (ENTRY.equals(qname)) {
-      element = (OMElement) newEntry(qname, parent, builder);
-    } else if (AUTHOR.equals(qname)) {
-      element = (OMElement) newPerson(qname, parent, builder);
-    } else if (CATEGORY.equals(qname)) {
-      element = (OMElement) newCategory(qname, parent, builder);
-    } else if (CONTENT.equals(qname)) {
-      Content.Type type = builder.getContentType();
-      element = (OMElement) newContent(qname, type, parent, builder);
-    } else if (CONTRIBUTOR.equals(qname)) {
-      element = (OMElement) newPerson(qname, parent, builder);
-    } else if (GENERATOR.equals(qname)) {
-      element = (OMElement) newGenerator(qname, parent, builder);
-    } else if (ICON.equals(qname)) {
-      element = (OMElement) newURIElement(qname, parent, builder);
-    } else if (ID.equals(qname)) {
-      element = (OMElement) newID(qname, parent, builder);
-    } else if (LOGO.equals(qname)) {
-      element = (OMElement) newURIElement(qname, parent, builder);
-    } else if (LINK.equals(qname)) {
-      element = (OMElement) newLink(qname, parent, builder);
-    } else if (PUBLISHED.equals(qname)) {
-      element = (OMElement) newDateTimeElement(qname, parent, builder);
-    } else if (RIGHTS.equals(qname)) {
-      Text.Type type = builder.getTextType();
-      element = (OMElement) newText(qname, type, parent, builder);
-    } else if (SOURCE.equals(qname)) {
-      element = (OMElement) newSource(qname, parent, builder);
-    } else if (SUBTITLE.equals(qname)) {
-      Text.Type type = builder.getTextType();
-      element = (OMElement) newText(qname, type, parent, builder);
-    } else if (SUMMARY.equals(qname)) {
-      Text.Type type = builder.getTextType();
-      element = (OMElement) newText(qname, type, parent, builder);
-    } else if (TITLE.equals(qname)) {
-      Text.Type type = builder.getTextType();
-      element = (OMElement) newText(qname, type, parent, builder);
-    } else if (UPDATED.equals(qname)) {
-      element = (OMElement) newDateTimeElement(qname, parent, builder);          
-    } else if (WORKSPACE.equals(qname)) {
-      element = (OMElement) newWorkspace(qname, parent, builder);
-    } else if (COLLECTION.equals(qname)) {
-      element = (OMElement) newCollection(qname, parent, builder);
-    } else if (NAME.equals(qname)) {
-      element = (OMElement) newElement(qname, parent, builder);
-    } else if (EMAIL.equals(qname)) {
-      element = (OMElement) newElement(qname, parent, builder);
-    } else if (URI.equals(qname)) {
-      element = (OMElement) newURIElement(qname, parent, builder);
-    } else if (CONTROL.equals(qname)) {
-      element = (OMElement) newControl(qname, parent, builder);
-    } else if (DIV.equals(qname)) {
-      element = (OMElement) newDiv(qname, parent, builder);
-    } else if (parent instanceof ExtensibleElement || parent instanceof Document) {
-      element = (OMElement) newExtensionElement(qname, parent, builder);
-    }
-    return element;
+      ElementConstructor constructor = getElementConstructor(qname);
+      if (constructor != null) 
+        return constructor.newElement(this, qname, parent, builder);
+      if (parent instanceof ExtensibleElement || 
+          parent instanceof Document)
+        return (OMElement) newExtensionElement(qname, parent, builder);
+      return null;
   }
 
   public void registerExtension(QName qname, Class impl) {
-    if (extensions == null) extensions = new HashMap<QName,Class>();
-    extensions.put(qname, impl);
+    registerExtension(qname, new ReflectiveExtensionConstructor(impl));
+  }
+  
+  /**
+   * Registers the constructor used to create instances of the given 
+   * extension element for this Factory instance only
+   */
+  public void registerExtension(QName qname, FOMExtensionConstructor constructor) {
+    extensions.put(qname, new ExtensionConstructor(constructor));
   }
   
   public void registerExtension(ExtensionFactory factory) {
@@ -772,11 +1042,9 @@ public class FOMFactory
 
   public List<String> getNamespaces() {
     List<String> namespaces = new ArrayList<String>();
-    if (extensions != null) {
-      for (QName qname : extensions.keySet()) {
-        if (!namespaces.contains(qname.getNamespaceURI()))
-          namespaces.add(qname.getNamespaceURI());
-      }
+    for (QName qname : extensions.keySet()) {
+      if (!namespaces.contains(qname.getNamespaceURI()))
+        namespaces.add(qname.getNamespaceURI());
     }
     return namespaces;
   }
@@ -784,29 +1052,24 @@ public class FOMFactory
   public boolean handlesNamespace(String namespace) {
     return getNamespaces().contains(namespace);
   }
+  
+  private FOMExtensionConstructor getExtensionConstructor(QName qname) {
+    ExtensionConstructor constructor = extensions.get(qname);
+    return (constructor != null) ? constructor.getConstructor() : null;
+  }
 
   @SuppressWarnings("unchecked")
   public <T extends Element> T newExtensionElement(
     QName qname, 
     Base parent, 
     Factory factory) {
-      if (extensions != null) {
-        Class _class = extensions.get(qname);
-        if (_class != null) {
-          try {
-            return (T)_class.getConstructor(
-              new Class[] {
-                QName.class,
-                OMContainer.class,
-                OMFactory.class}).newInstance(
-                  new Object[] {
-                    qname, 
-                    parent, 
-                    factory});
-          } catch (Exception e) {}
-        }
-      }
-      return null;
+      FOMExtensionConstructor constructor = getExtensionConstructor(qname);
+      return (constructor != null) ? 
+        (T) constructor.newInstance(
+          qname, 
+          (OMContainer)parent, 
+          (OMFactory)factory) : 
+        null;
   }
 
   @SuppressWarnings("unchecked")
@@ -815,25 +1078,14 @@ public class FOMFactory
     Base parent, 
     Factory factory, 
     OMXMLParserWrapper parserWrapper) {
-      if (extensions != null) {
-        Class _class = extensions.get(qname);
-        if (_class != null) {
-          try {
-            return (T)_class.getConstructor(
-              new Class[] {
-                QName.class,
-                OMContainer.class,
-                OMFactory.class,
-                OMXMLParserWrapper.class}).newInstance(
-                  new Object[] {
-                    qname, 
-                    parent, 
-                    factory,
-                    parserWrapper});
-          } catch (Exception e) {}
-        }
-      }
-      return null;
+      FOMExtensionConstructor constructor = getExtensionConstructor(qname);
+      return (constructor != null) ? 
+        (T) constructor.newInstance(
+          qname, 
+          (OMContainer)parent, 
+          (OMFactory)factory, 
+          parserWrapper) : 
+        null;
   }
   
 }
@@ -17,15 +17,26 @@
 */
 package org.apache.abdera.parser.stax;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.model.Entry;
 import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.Link;
 import org.apache.abdera.model.Source;
+import org.apache.abdera.parser.stax.snapshot.Snapshot;
 import org.apache.abdera.util.Constants;
 import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMElement;
@@ -98,6 +109,12 @@ public class FOMFeed
     return fomfactory.newEntry(this);
   }
   
+  public void addEntries(Collection<Entry> entries) {
+    // the collection may be a live view of this feed's own entries
+    List<Entry> list = new ArrayList<Entry>(entries);
+    for (Entry entry : list) super.addChild((OMElement)entry);
+  }
+  
   public void insertEntry(Entry entry) {
     OMElement el = getFirstChildWithName(ENTRY);
     if (el == null) {
@@ -114,18 +131,70 @@ public class FOMFeed
     return entry;
   }
 
+  public void sortEntries(Comparator<Entry> comparator) {
+    _checkWritable();
+    List<Entry> entries = new ArrayList<Entry>(getEntries());
+    List<Entry> sorted = new ArrayList<Entry>(entries);
+    Collections.sort(sorted, comparator);
+    _reorderChildren(entries, sorted);
+  }
+  
+  public void sortEntriesByUpdated(boolean descending) {
+    _checkWritable();
+    List<Entry> entries = new ArrayList<Entry>(getEntries());
+    List<UpdatedKey> keys = new ArrayList<UpdatedKey>(entries.size());
+    for (Entry entry : entries) keys.add(new UpdatedKey(entry));
+    Comparator<UpdatedKey> comparator = UpdatedKey.ASCENDING;
+    Collections.sort(keys, 
+      descending ? Collections.reverseOrder(comparator) : comparator);
+    List<Entry> sorted = new ArrayList<Entry>(keys.size());
+    for (UpdatedKey key : keys) sorted.add(key.entry);
+    _reorderChildren(entries, sorted);
+  }
+  
+  /**
+   * An entry paired with its atom:updated value, parsed once before sorting
+   */
+  private static final class UpdatedKey {
+    static final Comparator<UpdatedKey> ASCENDING = new Comparator<UpdatedKey>() {
+      public int compare(UpdatedKey a, UpdatedKey b) {
+        return (a.time < b.time) ? -1 : (a.time == b.time) ? 0 : 1;
+      }
+    };
+    final Entry entry;
+    final long time;
+    UpdatedKey(Entry entry) {
+      Date updated = null;
+      try {
+        updated = entry.getUpdated();
+      } catch (IllegalArgumentException e) {
+        // a malformed date sorts like a missing one
+      }
+      this.entry = entry;
+      this.time = (updated != null) ? updated.getTime() : Long.MIN_VALUE;
+    }
+  }
+
   public Source getAsSource() {
     FOMSource source = (FOMSource) ((FOMFactory)factory).newSource(null);
     OMElement _source = source;
     for (Iterator i = this.getChildElements(); i.hasNext();) {
       OMElement _child = (OMElement) i.next();
       if (!_child.getQName().equals(ENTRY)) {
-        _source.addChild(_child.cloneOMElement());
+        _source.addChild((_child instanceof FOMElement) ? 
+          (OMElement) ((FOMElement)_child).clone() : 
+          _child.cloneOMElement());
       }
     }
     return source;
   }
 
+  public Map<Link,URI> getResolvedHrefs() throws URISyntaxException {
+    Map<Link,URI> hrefs = new LinkedHashMap<Link,URI>();
+    _resolveHrefs(_getInheritedBaseUri(), hrefs);
+    return hrefs;
+  }
+  
   @Override
   public void addChild(OMNode node) {
     if (isComplete() && node instanceof OMElement && !(node instanceof Entry)) {
@@ -137,5 +206,9 @@ public class FOMFeed
     }
     super.addChild(node);
   }
+  
+  public Feed freeze() {
+    return Snapshot.freeze((Feed)this);
+  }
  
 }
@@ -74,7 +74,13 @@ public class FOMIRI
   }
   
   public URI getValue() throws URISyntaxException {
-    return _getUriValue(getText());
+    String v = getText();
+    URI uri = (URI) _getCachedValue(TEXT_VALUE, v);
+    if (uri == null && v != null) {
+      uri = _getUriValue(v);
+      _setCachedValue(TEXT_VALUE, v, uri);
+    }
+    return uri;
   }
 
   public void setValue(String iri) throws URISyntaxException {
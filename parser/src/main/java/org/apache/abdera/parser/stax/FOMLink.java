@@ -105,7 +105,7 @@ public class FOMLink
   }
   
   public URI getHref() throws URISyntaxException {
-    return _getUriValue(getAttributeValue(HREF));
+    return _getUriAttributeValue(HREF);
   }
 
   public URI getResolvedHref() throws URISyntaxException {
@@ -128,8 +128,7 @@ public class FOMLink
   }
 
   public MimeType getMimeType() throws MimeTypeParseException {
-    String type = getAttributeValue(TYPE);
-    return (type != null) ? new MimeType(type) : null;
+    return _getMimeTypeAttributeValue(TYPE);
   }
   
   public void setMimeType(MimeType type) {
@@ -186,12 +185,16 @@ public class FOMLink
     REL_EQUIVS.put(REL_LICENSE_IANA, REL_LICENSE);
     REL_EQUIVS.put(REL_EDIT_IANA, REL_EDIT);
     REL_EQUIVS.put(REL_EDIT_MEDIA_IANA, REL_EDIT_MEDIA);
+    for (String rel : REL_EQUIVS.values().toArray(new String[REL_EQUIVS.size()]))
+      REL_EQUIVS.put(rel, rel);
   }
   public static final String getRelEquiv(String val) {
+    String rel = REL_EQUIVS.get(val);
+    if (rel != null) return rel;
     try {
       val = URIHelper.normalize(val);
     } catch (Exception e) {}
-    String rel = REL_EQUIVS.get(val);
+    rel = REL_EQUIVS.get(val);
     return (rel != null) ? rel : val;
   }
 
@@ -0,0 +1,200 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.abdera.parser.ParseListener;
+import org.apache.abdera.parser.ParseMetrics;
+
+/**
+ * Collects the metrics for a single document and hands them to the 
+ * ParseListener once the document has been read.  Instances are only ever
+ * used by the parser and builder of one document and are not thread safe.
+ */
+class FOMParseMetrics 
+  implements ParseMetrics {
+
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private static final boolean cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+  
+  private final ParseListener listener;
+  private final String base;
+  private String charset = null;
+  private boolean counting = false;
+  private long bytesRead = 0;
+  long elementsBuilt = 0;
+  long elementsDropped = 0;
+  long attributesDropped = 0;
+  long textFiltered = 0;
+  private long wallTime = 0;
+  private long cpuTime = 0;
+  private boolean running = false;
+  private boolean reported = false;
+  private long wallStart;
+  private long cpuStart;
+  
+  FOMParseMetrics(ParseListener listener, String base) {
+    this.listener = listener;
+    this.base = base;
+  }
+  
+  public String getBaseUri() {
+    return base;
+  }
+  
+  public long getBytesRead() {
+    return counting ? bytesRead : -1;
+  }
+  
+  public String getCharset() {
+    return charset;
+  }
+  
+  public long getElementsBuilt() {
+    return elementsBuilt;
+  }
+  
+  public long getElementsDropped() {
+    return elementsDropped;
+  }
+  
+  public long getAttributesDropped() {
+    return attributesDropped;
+  }
+  
+  public long getTextFiltered() {
+    return textFiltered;
+  }
+  
+  public long getWallTime() {
+    return wallTime;
+  }
+  
+  public long getCpuTime() {
+    return (cpuSupported && cpuTime >= 0) ? cpuTime : -1;
+  }
+  
+  void setCharset(String charset) {
+    this.charset = charset;
+  }
+  
+  /**
+   * Starts timing a parse step.  Returns false if a step is already being 
+   * timed, in which case the caller must not call stop
+   */
+  boolean start() {
+    if (running) return false;
+    running = true;
+    wallStart = System.nanoTime();
+    cpuStart = currentCpuTime();
+    return true;
+  }
+  
+  void stop() {
+    wallTime += System.nanoTime() - wallStart;
+    if (cpuStart >= 0) {
+      long cpu = currentCpuTime();
+      if (cpu >= 0) cpuTime += cpu - cpuStart;
+    }
+    running = false;
+  }
+  
+  private static long currentCpuTime() {
+    try {
+      return cpuSupported ? threads.getCurrentThreadCpuTime() : -1;
+    } catch (UnsupportedOperationException e) {
+      return -1;
+    }
+  }
+  
+  void parsed() {
+    if (reported) return;
+    reported = true;
+    listener.parsed(this);
+  }
+  
+  void failed(Throwable error) {
+    if (reported) return;
+    reported = true;
+    listener.failed(this, error);
+  }
+  
+  /**
+   * Wraps the input so that the bytes read from it are counted
+   */
+  InputStream count(InputStream in) {
+    if (counting) return in;
+    counting = true;
+    return new FilterInputStream(in) {
+      public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) bytesRead++;
+        return b;
+      }
+      public int read(byte[] buf, int off, int len) throws IOException {
+        int n = super.read(buf, off, len);
+        if (n > 0) bytesRead += n;
+        return n;
+      }
+      public long skip(long n) throws IOException {
+        long s = super.skip(n);
+        bytesRead += s;
+        return s;
+      }
+      public boolean markSupported() {
+        return false;
+      }
+    };
+  }
+  
+  /**
+   * Wraps the input so that the characters read from it are counted.  
+   * Input that is already being counted is returned as is
+   */
+  Reader count(Reader in) {
+    if (counting) return in;
+    counting = true;
+    return new FilterReader(in) {
+      public int read() throws IOException {
+        int c = super.read();
+        if (c != -1) bytesRead++;
+        return c;
+      }
+      public int read(char[] buf, int off, int len) throws IOException {
+        int n = super.read(buf, off, len);
+        if (n > 0) bytesRead += n;
+        return n;
+      }
+      public long skip(long n) throws IOException {
+        long s = super.skip(n);
+        bytesRead += s;
+        return s;
+      }
+      public boolean markSupported() {
+        return false;
+      }
+    };
+  }
+}
@@ -17,27 +17,43 @@
 */
 package org.apache.abdera.parser.stax;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.model.Document;
 import org.apache.abdera.model.Element;
 import org.apache.abdera.parser.ParseException;
+import org.apache.abdera.parser.ParseListener;
 import org.apache.abdera.parser.Parser;
 import org.apache.abdera.parser.ParserOptions;
+import org.apache.abdera.parser.stax.util.ByteBufferInputStream;
 import org.apache.abdera.parser.stax.util.FOMSniffingInputStream;
+import org.apache.abdera.parser.stax.util.FOMStAXFactoryPool;
+import org.apache.abdera.parser.stax.util.RetainingReader;
 import org.apache.abdera.util.AbstractParser;
 import org.apache.axiom.om.OMDocument;
-import org.apache.axiom.om.util.StAXUtils;
 
 public class FOMParser 
   extends AbstractParser 
   implements Parser {
   
+  /**
+   * Files and channels at least this large are memory mapped rather 
+   * than read into the heap
+   */
+  protected static final long MAP_THRESHOLD = 256 * 1024;
+  
   private FOMFactory getFomFactory(ParserOptions options) {
     FOMFactory factory = 
       (options != null && options.getFactory() != null) ? 
@@ -48,6 +64,12 @@ public class FOMParser
     return factory;
   }
   
+  private XMLInputFactory getInputFactory(ParserOptions options) {
+    return (options instanceof FOMParserOptions) ? 
+      ((FOMParserOptions)options).getXMLInputFactory() : 
+      FOMStAXFactoryPool.getInputFactory();
+  }
+  
   private <T extends Element>Document<T> getDocument(
     FOMBuilder builder, 
     URI base) {
@@ -65,15 +87,42 @@ public class FOMParser
     }    
   }
   
+  private FOMParseMetrics getMetrics(URI base, ParserOptions options) {
+    ParseListener listener = 
+      (options != null) ? options.getParseListener() : null;
+    return (listener != null) ? 
+      new FOMParseMetrics(listener, (base != null) ? base.toString() : null) : 
+      null;
+  }
+  
+  private ParseException failed(Exception e, FOMParseMetrics metrics) {
+    if (!(e instanceof ParseException))
+      e = new ParseException(e);
+    if (metrics != null) metrics.failed(e);
+    return (ParseException)e;
+  }
+  
   public <T extends Element>Document<T> parse(
     InputStream in, 
     URI base, 
     ParserOptions options)
       throws ParseException {
-    Document<T> document = null;
     if (in == null)
       throw new IllegalArgumentException("InputStream must not be null");
+    return parse(in, base, options, getMetrics(base, options));
+  }
+  
+  private <T extends Element>Document<T> parse(
+    InputStream in, 
+    URI base, 
+    ParserOptions options,
+    FOMParseMetrics metrics)
+      throws ParseException {
+    Document<T> document = null;
+    boolean timing = metrics != null && metrics.start();
     try {
+      if (options != null && options.getAutodetectCompression())
+        in = FOMSniffingInputStream.decompress(in);
       String charset = (options != null) ? options.getCharset() : null;
       boolean detect = (options != null) ? options.getAutodetectCharset() : true;
       if (charset == null && detect) {
@@ -84,16 +133,34 @@ public class FOMParser
         charset = sin.getEncoding();
         in = sin;
       }
-      XMLStreamReader xmlreader = StAXUtils.createXMLStreamReader(in);
+      if (metrics != null) in = metrics.count(in);
+      if (options != null && options.getLazyContent()) {
+        // lazy content needs the character offsets of the input
+        if (charset != null) options.setCharset(charset);
+        else charset = "UTF-8";
+        if (metrics != null) metrics.setCharset(charset);
+        return parse(
+          new InputStreamReader(in, charset), 
+          base, options, metrics);
+      }
+      XMLStreamReader xmlreader = 
+        getInputFactory(options).createXMLStreamReader(in);
       if (options != null && charset != null) options.setCharset(charset);
+      if (metrics != null) {
+        // without a BOM or declaration the input is read as UTF-8
+        String used = (charset != null) ? charset : xmlreader.getEncoding();
+        metrics.setCharset(used != null ? used : "UTF-8");
+      }
       FOMFactory factory = getFomFactory(options);
       FOMBuilder builder = new FOMBuilder(factory, xmlreader, options);
+      builder.setMetrics(metrics);
+      builder.setInput(in);
       document = getDocument(builder, base);
       setCharset(options, xmlreader.getCharacterEncodingScheme(), document);
     } catch (Exception e) {
-      if (!(e instanceof ParseException))
-        e = new ParseException(e);
-      throw (ParseException)e;
+      throw failed(e, metrics);
+    } finally {
+      if (timing) metrics.stop();
     }
     return document;
   }
@@ -103,23 +170,111 @@ public class FOMParser
     URI base, 
     ParserOptions options) 
       throws ParseException {
-    Document<T> document = null;
     if (in == null)
       throw new IllegalArgumentException("Reader must not be null");
+    return parse(in, base, options, getMetrics(base, options));
+  }
+  
+  private <T extends Element> Document<T> parse(
+    Reader in, 
+    URI base, 
+    ParserOptions options,
+    FOMParseMetrics metrics) 
+      throws ParseException {
+    Document<T> document = null;
+    boolean timing = metrics != null && metrics.start();
     try {
+      if (metrics != null) in = metrics.count(in);
+      RetainingReader retained = null;
+      if (options != null && options.getLazyContent())
+        in = retained = new RetainingReader(in);
       FOMFactory factory = getFomFactory(options);
-      XMLStreamReader xmlreader = StAXUtils.createXMLStreamReader(in);
+      XMLStreamReader xmlreader = 
+        getInputFactory(options).createXMLStreamReader(in);
       FOMBuilder builder = new FOMBuilder(factory, xmlreader, options);
+      builder.setRetainedInput(retained);
+      builder.setMetrics(metrics);
+      builder.setInput(in);
       document = getDocument(builder, base);
       setCharset(options, xmlreader.getCharacterEncodingScheme(), document);
     } catch (Exception e) {
-      if (!(e instanceof ParseException))
-        e = new ParseException(e);
-      throw (ParseException)e;
+      throw failed(e, metrics);
+    } finally {
+      if (timing) metrics.stop();
     }
     return document;
   }
   
+  public <T extends Element> Document<T> parse(
+    ByteBuffer buf, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException {
+    if (buf == null)
+      throw new IllegalArgumentException("ByteBuffer must not be null");
+    return parse(new ByteBufferInputStream(buf.duplicate()), base, options);
+  }
+  
+  public <T extends Element> Document<T> parse(
+    FileChannel channel, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException {
+    if (channel == null)
+      throw new IllegalArgumentException("FileChannel must not be null");
+    ByteBuffer buf = null;
+    try {
+      buf = read(channel);
+    } catch (IOException e) {
+      throw new ParseException(e);
+    }
+    return parse(buf, base, options);
+  }
+  
+  public <T extends Element> Document<T> parse(
+    File file, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException {
+    if (file == null)
+      throw new IllegalArgumentException("File must not be null");
+    ByteBuffer buf = null;
+    try {
+      // a mapping remains valid after the channel has been closed
+      FileInputStream in = new FileInputStream(file);
+      try {
+        buf = read(in.getChannel());
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      throw new ParseException(e);
+    }
+    return parse(buf, base, options);
+  }
+
+  private ByteBuffer read(FileChannel channel) throws IOException {
+    long position = channel.position();
+    long size = channel.size() - position;
+    if (size > Integer.MAX_VALUE)
+      throw new IOException("File is too large to be parsed: " + size + " bytes");
+    if (size >= MAP_THRESHOLD) {
+      ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      channel.position(position + size);
+      return buf;
+    }
+    ByteBuffer buf = ByteBuffer.allocate((int)size);
+    while (buf.hasRemaining() && channel.read(buf) != -1);
+    buf.flip();
+    return buf;
+  }
+  
+  @Override
+  protected void complete(Document<?> document) {
+    if (document instanceof FOMDocument) 
+      ((FOMDocument)document).build();
+  }
+  
   @Override
   public ParserOptions getDefaultParserOptions() {
     return new FOMParserOptions();
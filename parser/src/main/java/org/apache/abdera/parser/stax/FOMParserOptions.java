@@ -17,13 +17,33 @@
 */
 package org.apache.abdera.parser.stax;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
 import org.apache.abdera.factory.Factory;
+import org.apache.abdera.parser.stax.util.FOMStAXFactoryPool;
 import org.apache.abdera.util.AbstractParserOptions;
 
 
 public class FOMParserOptions
   extends AbstractParserOptions {
 
+  /**
+   * StAX2 property used to request that element and attribute names be 
+   * interned.  Only applied if the selected StAX implementation supports it
+   */
+  public static final String INTERN_NAMES = "org.codehaus.stax2.internNames";
+
+  private String inputFactoryImpl = null;
+  private String outputFactoryImpl = null;
+  private Map<String,Object> inputProperties = null;
+  private Map<String,Object> outputProperties = null;
+  private XMLInputFactory inputFactory = null;
+  private XMLOutputFactory outputFactory = null;
+
   protected void initFactory() {
     factory = (Factory.INSTANCE instanceof FOMFactory) ? (FOMFactory)Factory.INSTANCE : new FOMFactory();
   }
@@ -34,5 +54,131 @@ public class FOMParserOptions
         "Only instances or subclasses of org.apache.abdera.axiom.FOMFactory may be used with this parser implementation");
   }
 
+  /**
+   * Sets the class name of the XMLInputFactory implementation to use. 
+   * If null, the default StAX implementation is used
+   */
+  public void setXMLInputFactoryClass(String impl) {
+    this.inputFactoryImpl = impl;
+    this.inputFactory = null;
+  }
+  
+  public String getXMLInputFactoryClass() {
+    return inputFactoryImpl;
+  }
+  
+  /**
+   * Sets the class name of the XMLOutputFactory implementation to use. 
+   * If null, the default StAX implementation is used
+   */
+  public void setXMLOutputFactoryClass(String impl) {
+    this.outputFactoryImpl = impl;
+    this.outputFactory = null;
+  }
+
+  public String getXMLOutputFactoryClass() {
+    return outputFactoryImpl;
+  }
+  
+  /**
+   * Sets a property on the XMLInputFactory.  Setting a null value removes
+   * the property
+   */
+  public void setInputFactoryProperty(String name, Object value) {
+    inputProperties = setProperty(inputProperties, name, value);
+    this.inputFactory = null;
+  }
+  
+  public Object getInputFactoryProperty(String name) {
+    return (inputProperties != null) ? inputProperties.get(name) : null;
+  }
+  
+  /**
+   * Sets a property on the XMLOutputFactory.  Setting a null value removes
+   * the property
+   */
+  public void setOutputFactoryProperty(String name, Object value) {
+    outputProperties = setProperty(outputProperties, name, value);
+    this.outputFactory = null;
+  }
+
+  public Object getOutputFactoryProperty(String name) {
+    return (outputProperties != null) ? outputProperties.get(name) : null;
+  }
+  
+  public void setCoalescing(boolean coalescing) {
+    setInputFactoryProperty(
+      XMLInputFactory.IS_COALESCING, 
+      coalescing ? Boolean.TRUE : null);
+  }
+  
+  public boolean getCoalescing() {
+    return Boolean.TRUE.equals(
+      getInputFactoryProperty(XMLInputFactory.IS_COALESCING));
+  }
+  
+  /**
+   * Requests that the parser intern element and attribute names.  This is
+   * ignored if the StAX implementation does not support the INTERN_NAMES 
+   * property (Woodstox 2.x, for instance, always interns names)
+   */
+  public void setInterning(boolean interning) {
+    setInputFactoryProperty(INTERN_NAMES, interning ? Boolean.TRUE : null);
+  }
+  
+  public boolean getInterning() {
+    return Boolean.TRUE.equals(getInputFactoryProperty(INTERN_NAMES));
+  }
+  
+  /**
+   * Returns the shared XMLInputFactory configured by these options
+   */
+  public XMLInputFactory getXMLInputFactory() {
+    if (inputFactory == null) {
+      Map<String,Object> properties = inputProperties;
+      if (properties != null && properties.containsKey(INTERN_NAMES)) {
+        properties = new HashMap<String,Object>(properties);
+        properties.remove(INTERN_NAMES);
+        if (FOMStAXFactoryPool.getInputFactory(
+              inputFactoryImpl, properties).isPropertySupported(INTERN_NAMES))
+          properties = inputProperties;
+      }
+      inputFactory = 
+        FOMStAXFactoryPool.getInputFactory(inputFactoryImpl, properties);
+    }
+    return inputFactory;
+  }
+  
+  /**
+   * Returns the shared XMLOutputFactory configured by these options
+   */
+  public XMLOutputFactory getXMLOutputFactory() {
+    if (outputFactory == null) 
+      outputFactory = 
+        FOMStAXFactoryPool.getOutputFactory(outputFactoryImpl, outputProperties);
+    return outputFactory;
+  }
+  
+  public Object clone() {
+    FOMParserOptions options = (FOMParserOptions) super.clone();
+    if (inputProperties != null) 
+      options.inputProperties = new HashMap<String,Object>(inputProperties);
+    if (outputProperties != null) 
+      options.outputProperties = new HashMap<String,Object>(outputProperties);
+    return options;
+  }
+  
+  private static Map<String,Object> setProperty(
+    Map<String,Object> properties, 
+    String name, 
+    Object value) {
+      if (value == null) {
+        if (properties != null) properties.remove(name);
+      } else {
+        if (properties == null) properties = new HashMap<String,Object>();
+        properties.put(name, value);
+      }
+      return properties;
+  }
 
 }
@@ -0,0 +1,418 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.abdera.factory.Factory;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.parser.ParseException;
+import org.apache.abdera.parser.Parser;
+import org.apache.abdera.parser.ParserOptions;
+import org.apache.abdera.parser.stax.util.FOMSniffingInputStream;
+
+/**
+ * A non-blocking, push mode parser.  Rather than reading from an 
+ * InputStream, the parser is handed chunks of the document as they arrive
+ * (for instance, from a non-blocking socket) and never waits for more 
+ * input.  Each entry of a feed is delivered to the Callback as soon as its
+ * end tag has been received; once the root element has been received the
+ * Callback is given the Document.  By default the final feed document 
+ * contains the feed metadata only, so that entries do not accumulate in 
+ * memory; call setRetainEntries(true) to have the entries appended to it.
+ * 
+ * <p>The input is decoded incrementally and a lightweight scanner tracks 
+ * the element structure; each complete entry is then parsed on its own, 
+ * within a copy of the feed start tag, using the regular parser and 
+ * factory, so the objects produced are ordinary FOM instances.  As a 
+ * consequence a ParseListener registered on the options receives a report
+ * for every entry as well as one for the feed.  A push parser must only 
+ * be fed by one thread at a time.</p>
+ */
+public class FOMPushParser {
+
+  /**
+   * Receives the objects produced by a push parser
+   */
+  public static abstract class Callback {
+    
+    /**
+     * Called for each entry as soon as it has been received.  Called once 
+     * for the root element if the document is an entry document
+     */
+    public void entry(Entry entry) {}
+    
+    /**
+     * Called once the root element has been received
+     */
+    public void completed(Document<? extends Element> document) {}
+  }
+  
+  private static final int HEAD = 200;
+  
+  private final Parser parser;
+  private final URI base;
+  private final ParserOptions options;
+  private final Callback callback;
+  private boolean retainEntries = false;
+  
+  private ByteBuffer head = ByteBuffer.allocate(HEAD);
+  private CharsetDecoder decoder = null;
+  private ByteBuffer leftover = null;
+  private CharBuffer decoded = null;
+  private StringBuilder pending = new StringBuilder();
+  private StringBuilder retained = new StringBuilder();
+  private final List<Entry> entries = new ArrayList<Entry>();
+  private int scan = 0;
+  private int depth = 0;
+  private int prologue = -1;
+  private String root = null;
+  private boolean isFeed = false;
+  private boolean inEntry = false;
+  private boolean complete = false;
+  private boolean closed = false;
+  
+  public FOMPushParser(Callback callback) {
+    this(null, null, callback);
+  }
+  
+  public FOMPushParser(
+    URI base, 
+    ParserOptions options, 
+    Callback callback) {
+      if (callback == null)
+        throw new IllegalArgumentException("Callback must not be null");
+      FOMFactory factory = 
+        (options != null && options.getFactory() instanceof FOMFactory) ?
+          (FOMFactory)options.getFactory() : 
+          (Factory.INSTANCE instanceof FOMFactory) ? 
+            (FOMFactory)Factory.INSTANCE : new FOMFactory();
+      this.parser = factory.newParser();
+      this.base = base;
+      this.options = (options != null) ? 
+        options : parser.getDefaultParserOptions();
+      this.callback = callback;
+  }
+  
+  /**
+   * When true, the entries delivered to the Callback are also appended to
+   * the feed of the final document
+   */
+  public void setRetainEntries(boolean retain) {
+    this.retainEntries = retain;
+  }
+  
+  public boolean getRetainEntries() {
+    return retainEntries;
+  }
+  
+  /**
+   * Returns true once the root element has been received
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+  
+  /**
+   * Hands the parser the next chunk of the document.  All of the remaining
+   * bytes of the buffer are consumed.  Any entries completed by the chunk 
+   * are parsed and delivered before this method returns
+   */
+  public void feed(ByteBuffer chunk) throws ParseException {
+    if (closed) throw new ParseException("The parser has been closed");
+    if (complete) {
+      chunk.position(chunk.limit());
+      return;
+    }
+    if (decoder == null) {
+      while (chunk.hasRemaining() && head.hasRemaining()) {
+        byte b = chunk.get();
+        head.put(b);
+        // the encoding is known once the declaration or root tag is closed
+        if (b == '>') break;
+      }
+      if (head.hasRemaining() && 
+          (head.position() == 0 || head.get(head.position() - 1) != '>')) 
+        return;
+      head.flip();
+      start();
+    }
+    decode(chunk, false);
+  }
+  
+  /**
+   * Signals the end of the document
+   */
+  public void close() throws ParseException {
+    if (closed) return;
+    closed = true;
+    if (complete) return;
+    if (decoder == null) {
+      head.flip();
+      start();
+    }
+    decode(ByteBuffer.allocate(0), true);
+    if (!complete) 
+      throw new ParseException("Unexpected end of document");
+  }
+  
+  private void start() {
+    String charset = FOMSniffingInputStream.detectEncoding(head);
+    try {
+      decoder = Charset.forName(charset != null ? charset : "UTF-8").newDecoder();
+    } catch (Exception e) {
+      throw new ParseException(e);
+    }
+    decoder.onMalformedInput(CodingErrorAction.REPORT);
+    decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
+    decoded = CharBuffer.allocate(4096);
+    ByteBuffer bytes = head;
+    head = null;
+    decode(bytes, false);
+    if (pending.length() > 0 && pending.charAt(0) == '\uFEFF')
+      pending.deleteCharAt(0);
+  }
+  
+  private void decode(ByteBuffer chunk, boolean end) {
+    ByteBuffer in = chunk;
+    if (leftover != null && leftover.hasRemaining()) {
+      in = ByteBuffer.allocate(leftover.remaining() + chunk.remaining());
+      in.put(leftover).put(chunk).flip();
+    }
+    try {
+      for (;;) {
+        CoderResult result = decoder.decode(in, decoded, end);
+        if (result.isError()) result.throwException();
+        drain();
+        if (!result.isOverflow()) break;
+      }
+      if (end) {
+        while (decoder.flush(decoded).isOverflow()) drain();
+        drain();
+      }
+    } catch (CharacterCodingException e) {
+      throw new ParseException(e);
+    }
+    if (in.hasRemaining()) {
+      leftover = ByteBuffer.allocate(in.remaining());
+      leftover.put(in).flip();
+    } else {
+      leftover = null;
+    }
+    scan();
+  }
+  
+  private void drain() {
+    decoded.flip();
+    pending.append(decoded);
+    decoded.clear();
+  }
+  
+  /**
+   * Walks the complete markup that has been received so far
+   */
+  private void scan() {
+    int length = pending.length();
+    while (!complete && scan < length) {
+      if (pending.charAt(scan) != '<') {
+        int lt = pending.indexOf("<", scan);
+        scan = (lt == -1) ? length : lt;
+        continue;
+      }
+      int end = markupEnd(scan, length);
+      if (end == -1) break;
+      char c = pending.charAt(scan + 1);
+      if (c == '/') {
+        endTag(end);
+      } else if (c != '!' && c != '?') {
+        startTag(end, pending.charAt(end - 2) == '/');
+      } else {
+        scan = end;
+      }
+      length = pending.length();
+    }
+    if (!inEntry && !complete) {
+      retained.append(pending, 0, scan);
+      pending.delete(0, scan);
+      scan = 0;
+    }
+  }
+  
+  private void startTag(int end, boolean empty) {
+    String name = tagName(scan + 1);
+    if (depth == 0) {
+      root = name;
+      isFeed = "feed".equals(localName(name));
+      retained.append(pending, 0, end);
+      pending.delete(0, end);
+      scan = 0;
+      prologue = retained.length();
+      if (empty) rootEnd(0);
+      else depth++;
+      return;
+    }
+    if (depth == 1 && isFeed && "entry".equals(localName(name))) {
+      retained.append(pending, 0, scan);
+      pending.delete(0, scan);
+      end -= scan;
+      scan = 0;
+      if (empty) {
+        entryEnd(end);
+        return;
+      }
+      inEntry = true;
+    }
+    if (!empty) depth++;
+    scan = end;
+  }
+  
+  private void endTag(int end) {
+    depth--;
+    if (depth == 1 && inEntry) {
+      entryEnd(end);
+    } else if (depth == 0) {
+      rootEnd(end);
+    } else {
+      scan = end;
+    }
+  }
+  
+  @SuppressWarnings("unchecked")
+  private void entryEnd(int end) {
+    inEntry = false;
+    String text = pending.substring(0, end);
+    pending.delete(0, end);
+    scan = 0;
+    StringBuilder buf = new StringBuilder(prologue + text.length() + root.length() + 3);
+    buf.append(retained, 0, prologue).append(text).append("</").append(root).append('>');
+    Document<Element> doc = parse(buf.toString());
+    Element wrapper = doc.getRoot();
+    Element child = (wrapper != null) ? wrapper.getFirstChild() : null;
+    if (child instanceof Entry) {
+      Entry entry = (Entry) child;
+      callback.entry(entry);
+      if (retainEntries) entries.add(entry);
+    } else {
+      // not an Atom entry; it belongs to the feed metadata
+      retained.append(text);
+    }
+  }
+  
+  private void rootEnd(int end) {
+    retained.append(pending, 0, end);
+    pending.setLength(0);
+    scan = 0;
+    complete = true;
+    Document<Element> doc = parse(retained.toString());
+    retained = null;
+    Element element = doc.getRoot();
+    if (element instanceof Entry)
+      callback.entry((Entry)element);
+    if (element instanceof Feed) {
+      for (Entry entry : entries)
+        ((Feed)element).addEntry(entry);
+    }
+    entries.clear();
+    callback.completed(doc);
+  }
+  
+  private Document<Element> parse(String text) {
+    Document<Element> doc = 
+      parser.parse(new StringReader(text), base, options);
+    try {
+      if (doc instanceof FOMDocument) ((FOMDocument)doc).build();
+    } catch (RuntimeException e) {
+      throw new ParseException(e);
+    }
+    return doc;
+  }
+  
+  /**
+   * Returns the offset just past the end of the markup starting at the 
+   * given offset, or -1 if the markup has not been received in full
+   */
+  private int markupEnd(int i, int length) {
+    if (length - i < 9) {
+      String rest = pending.substring(i, length);
+      if ("<!--".startsWith(rest) || "<![CDATA[".startsWith(rest)) return -1;
+    }
+    int n;
+    if (startsWith(i, "<!--")) {
+      n = pending.indexOf("-->", i + 4);
+      return (n == -1) ? -1 : n + 3;
+    } else if (startsWith(i, "<![CDATA[")) {
+      n = pending.indexOf("]]>", i + 9);
+      return (n == -1) ? -1 : n + 3;
+    } else if (startsWith(i, "<?")) {
+      n = pending.indexOf("?>", i + 2);
+      return (n == -1) ? -1 : n + 2;
+    }
+    char quote = 0;
+    int brackets = 0;
+    for (n = i + 1; n < length; n++) {
+      char c = pending.charAt(n);
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '[') {
+        brackets++;
+      } else if (c == ']') {
+        brackets--;
+      } else if (c == '>' && brackets <= 0) {
+        return n + 1;
+      }
+    }
+    return -1;
+  }
+  
+  private boolean startsWith(int i, String s) {
+    if (pending.length() - i < s.length()) return false;
+    for (int n = 0; n < s.length(); n++)
+      if (pending.charAt(i + n) != s.charAt(n)) return false;
+    return true;
+  }
+  
+  private String tagName(int i) {
+    int n = i;
+    while (n < pending.length()) {
+      char c = pending.charAt(n);
+      if (c == '/' || c == '>' || Character.isWhitespace(c)) break;
+      n++;
+    }
+    return pending.substring(i, n);
+  }
+  
+  private static String localName(String name) {
+    int colon = name.indexOf(':');
+    return (colon == -1) ? name : name.substring(colon + 1);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.parser.ParseException;
+import org.apache.abdera.parser.Parser;
+import org.apache.abdera.parser.ParserOptions;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNode;
+
+/**
+ * Reads the entries of a feed one at a time without keeping them in memory.
+ * Each Entry is fully built before it is returned and remains attached to 
+ * the feed until the next entry has been read, at which point it is detached
+ * and left for the garbage collector.  Callers that need to keep an entry 
+ * around past that point should clone it.  The feed level metadata that 
+ * precedes the first entry is available from getFeed() at all times; 
+ * metadata that follows the entries becomes available once the iteration
+ * is complete.
+ */
+public class FOMStreamingFeedReader 
+  implements Iterator<Entry>, 
+             Iterable<Entry> {
+
+  private Feed feed = null;
+  private OMNode current = null;
+  private OMNode next = null;
+  private boolean started = false;
+  
+  public FOMStreamingFeedReader(InputStream in) {
+    this(in, null, null);
+  }
+  
+  public FOMStreamingFeedReader(
+    InputStream in, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException {
+    this(parse(in, base, options));
+  }
+  
+  public FOMStreamingFeedReader(Reader in) {
+    this(in, null, null);
+  }
+  
+  public FOMStreamingFeedReader(
+    Reader in, 
+    URI base, 
+    ParserOptions options) 
+      throws ParseException {
+    this(parse(in, base, options));
+  }
+  
+  public FOMStreamingFeedReader(Document<Feed> doc) {
+    Object root = doc.getRoot();
+    if (!(root instanceof FOMFeed))
+      throw new FOMException("The document is not an Atom feed");
+    this.feed = (Feed) root;
+    this.next = findEntry(((OMElement)feed).getFirstOMChild());
+    this.started = true;
+  }
+  
+  private static Document<Feed> parse(
+    InputStream in, 
+    URI base, 
+    ParserOptions options) {
+      Parser parser = new FOMParser();
+      if (options == null) options = parser.getDefaultParserOptions();
+      return parser.parse(in, base, options);
+  }
+  
+  private static Document<Feed> parse(
+    Reader in, 
+    URI base, 
+    ParserOptions options) {
+      Parser parser = new FOMParser();
+      if (options == null) options = parser.getDefaultParserOptions();
+      return parser.parse(in, base, options);
+  }
+  
+  /**
+   * Returns the feed element. Entries that have already been consumed are
+   * no longer children of the feed.
+   */
+  public Feed getFeed() {
+    return feed;
+  }
+  
+  public Iterator<Entry> iterator() {
+    return this;
+  }
+  
+  public boolean hasNext() {
+    if (next == null && current != null) {
+      OMNode node = current.getNextOMSibling();
+      // the builder has moved past the current entry so it is safe to detach
+      current.detach();
+      current = null;
+      next = findEntry(node);
+    }
+    return next != null;
+  }
+
+  public Entry next() {
+    if (!hasNext()) throw new NoSuchElementException();
+    current = next;
+    next = null;
+    return (Entry) current;
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+  
+  /**
+   * Walks forward from the given node to the next entry, fully building it.
+   * Non-element nodes sitting between two entries are detached along the way
+   */
+  private OMNode findEntry(OMNode node) {
+    while (node != null && !(node instanceof Entry)) {
+      OMNode sibling = node.getNextOMSibling();
+      if (started && node.getType() != OMNode.ELEMENT_NODE) 
+        node.detach();
+      node = sibling;
+    }
+    if (node != null) node.build();
+    return node;
+  }
+  
+}
@@ -0,0 +1,262 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Category;
+import org.apache.abdera.model.Collection;
+import org.apache.abdera.model.Content;
+import org.apache.abdera.model.Control;
+import org.apache.abdera.model.DateTime;
+import org.apache.abdera.model.Div;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.ExtensibleElement;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.Generator;
+import org.apache.abdera.model.IRI;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.model.Person;
+import org.apache.abdera.model.Service;
+import org.apache.abdera.model.Source;
+import org.apache.abdera.model.Text;
+import org.apache.abdera.model.Workspace;
+import org.apache.abdera.parser.stax.FOMException;
+import org.apache.abdera.util.SymbolTable;
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMText;
+
+/**
+ * Builds immutable snapshots of Feed Object Model documents and elements.
+ * Each element of the source tree becomes an instance of the matching 
+ * Snapshot class, holding its attributes, namespace declarations and 
+ * children in flat arrays.  Adjacent text nodes are merged into a single
+ * String, and QNames, attribute values and short text are shared between
+ * snapshots through bounded tables.
+ */
+public final class Snapshot {
+
+  static final Object[] NO_CHILDREN = new Object[0];
+  
+  private static final int MAX_QNAMES = 4096;
+  
+  private static final SymbolTable symbols = new SymbolTable();
+  private static final ConcurrentMap<QName,QName> qnames = 
+    new ConcurrentHashMap<QName,QName>();
+  
+  private Snapshot() {}
+  
+  /**
+   * Returns an immutable snapshot of the document, reading the rest of 
+   * the document from the parser if it has not been read yet
+   */
+  public static <T extends Element>Document<T> freeze(Document<T> document) {
+    if (document instanceof SnapshotDocument) return document;
+    return new SnapshotDocument<T>(document, document.getRoot(), document.getBaseUri());
+  }
+  
+  /**
+   * Returns an immutable snapshot of the feed
+   */
+  public static Feed freeze(Feed feed) {
+    return (Feed) freezeElement(feed);
+  }
+  
+  /**
+   * Returns an immutable snapshot of the entry
+   */
+  public static Entry freeze(Entry entry) {
+    return (Entry) freezeElement(entry);
+  }
+  
+  /**
+   * An element is frozen into a document of its own whose base URI is the
+   * base the element inherits in its current position, so relative 
+   * references in the snapshot resolve exactly as they did in the source
+   */
+  private static Element freezeElement(Element element) {
+    if (element instanceof SnapshotElement) return element;
+    URI base = null;
+    try {
+      Base parent = element.getParentElement();
+      if (parent instanceof Element) 
+        base = ((Element)parent).getResolvedBaseUri();
+      else if (parent instanceof Document)
+        base = ((Document)parent).getBaseUri();
+    } catch (URISyntaxException e) {
+      throw new FOMException(e);
+    }
+    return new SnapshotDocument<Element>(
+      element.getDocument(), element, base).getRoot();
+  }
+  
+  static SnapshotElement element(Base parent, int index, OMElement source) {
+    if (source instanceof Feed) 
+      return new SnapshotFeed(parent, index, source);
+    if (source instanceof Source) 
+      return new SnapshotSource(parent, index, source);
+    if (source instanceof Entry) 
+      return new SnapshotEntry(parent, index, source);
+    if (source instanceof Link) 
+      return new SnapshotLink(parent, index, source);
+    if (source instanceof Person) 
+      return new SnapshotPerson(parent, index, source);
+    if (source instanceof Category) 
+      return new SnapshotCategory(parent, index, source);
+    if (source instanceof Content) 
+      return new SnapshotContent(
+        parent, index, source, ((Content)source).getContentType());
+    if (source instanceof Text) 
+      return new SnapshotText(
+        parent, index, source, ((Text)source).getTextType());
+    if (source instanceof DateTime) 
+      return new SnapshotDateTime(parent, index, source);
+    if (source instanceof IRI) 
+      return new SnapshotIRI(parent, index, source);
+    if (source instanceof Generator) 
+      return new SnapshotGenerator(parent, index, source);
+    if (source instanceof Control) 
+      return new SnapshotControl(parent, index, source);
+    if (source instanceof Div) 
+      return new SnapshotDiv(parent, index, source);
+    if (source instanceof Service) 
+      return new SnapshotService(parent, index, source);
+    if (source instanceof Workspace) 
+      return new SnapshotWorkspace(parent, index, source);
+    if (source instanceof Collection) 
+      return new SnapshotCollection(parent, index, source);
+    if (source instanceof ExtensibleElement) 
+      return new SnapshotExtensibleElement(parent, index, source);
+    return new SnapshotElement(parent, index, source);
+  }
+  
+  /**
+   * Whitespace between the child elements of these containers carries no
+   * information and is dropped
+   */
+  private static boolean isContainer(OMElement source) {
+    return source instanceof Source ||
+           source instanceof Entry ||
+           source instanceof Person ||
+           source instanceof Control ||
+           source instanceof Service ||
+           source instanceof Workspace ||
+           source instanceof Collection;
+  }
+  
+  static Object[] children(SnapshotElement parent, OMElement source) {
+    boolean trim = isContainer(source);
+    List<Object> children = null;
+    String text = null;
+    StringBuffer buf = null;
+    for (OMNode node = source.getFirstOMChild(); node != null; node = node.getNextOMSibling()) {
+      switch(node.getType()) {
+        case OMNode.TEXT_NODE:
+        case OMNode.CDATA_SECTION_NODE:
+        case OMNode.SPACE_NODE:
+          String value = ((OMText)node).getText();
+          if (text == null) {
+            text = value;
+          } else {
+            if (buf == null) buf = new StringBuffer(text);
+            buf.append(value);
+          }
+          break;
+        case OMNode.ELEMENT_NODE:
+          if (children == null) children = new ArrayList<Object>();
+          if (text != null) {
+            addText(children, (buf != null) ? buf.toString() : text, trim);
+            text = null;
+            buf = null;
+          }
+          children.add(element(parent, children.size(), (OMElement)node));
+          break;
+        default:
+          // comments, processing instructions and doctypes are dropped
+      }
+    }
+    if (text != null) {
+      if (children == null) children = new ArrayList<Object>(1);
+      addText(children, (buf != null) ? buf.toString() : text, trim);
+    }
+    return (children != null && children.size() > 0) ? 
+      children.toArray() : NO_CHILDREN;
+  }
+  
+  private static void addText(List<Object> children, String text, boolean trim) {
+    if (text.length() == 0 || (trim && text.trim().length() == 0)) return;
+    children.add(symbols.intern(text));
+  }
+  
+  static Object[] attributes(OMElement source) {
+    List<Object> attributes = null;
+    for (Iterator i = source.getAllAttributes(); i.hasNext();) {
+      OMAttribute attr = (OMAttribute) i.next();
+      if (attributes == null) attributes = new ArrayList<Object>();
+      attributes.add(qname(attr.getQName()));
+      attributes.add(symbols.intern(attr.getAttributeValue()));
+    }
+    return (attributes != null) ? attributes.toArray() : null;
+  }
+  
+  static String[] namespaces(OMElement source) {
+    List<String> namespaces = null;
+    for (Iterator i = source.getAllDeclaredNamespaces(); i.hasNext();) {
+      OMNamespace ns = (OMNamespace) i.next();
+      String prefix = (ns.getPrefix() != null) ? ns.getPrefix() : "";
+      // prefixes cannot be bound to the empty namespace
+      if (prefix.length() > 0 && ns.getName().length() == 0) continue;
+      if (namespaces == null) namespaces = new ArrayList<String>();
+      namespaces.add(prefix);
+      namespaces.add(symbols.intern(ns.getName()));
+    }
+    return (namespaces != null) ? 
+      namespaces.toArray(new String[namespaces.size()]) : null;
+  }
+  
+  /**
+   * QName.equals ignores the prefix, so a shared instance is only used 
+   * when its prefix matches as well
+   */
+  static QName qname(QName qname) {
+    QName existing = qnames.get(qname);
+    if (existing != null) {
+      if (existing.getPrefix().equals(qname.getPrefix())) return existing;
+    } else if (qnames.size() < MAX_QNAMES) {
+      existing = qnames.putIfAbsent(qname, qname);
+      if (existing != null && 
+          existing.getPrefix().equals(qname.getPrefix())) return existing;
+    }
+    return qname;
+  }
+  
+}
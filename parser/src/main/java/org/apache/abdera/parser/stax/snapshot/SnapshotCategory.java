@@ -0,0 +1,61 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Category;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotCategory 
+  extends SnapshotExtensibleElement 
+  implements Category {
+
+  private static final long serialVersionUID = 1617297453297539218L;
+
+  SnapshotCategory(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public String getTerm() {
+    return getAttributeValue(TERM);
+  }
+
+  public URI getScheme() throws URISyntaxException {
+    return _getUriValue(getAttributeValue(SCHEME));
+  }
+
+  public String getLabel() {
+    return getAttributeValue(LABEL);
+  }
+
+  public void setTerm(String term) {
+    throw readOnly();
+  }
+
+  public void setScheme(String scheme) {
+    throw readOnly();
+  }
+
+  public void setLabel(String label) {
+    throw readOnly();
+  }
+
+}
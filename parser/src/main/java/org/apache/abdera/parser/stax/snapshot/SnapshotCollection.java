@@ -0,0 +1,83 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import javax.activation.MimeType;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Collection;
+import org.apache.abdera.util.MimeTypeHelper;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotCollection 
+  extends SnapshotExtensibleElement 
+  implements Collection {
+
+  private static final long serialVersionUID = 4215536410786826718L;
+
+  SnapshotCollection(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public String getTitle() {
+    return getAttributeValue(ATITLE);
+  }
+
+  public URI getHref() throws URISyntaxException {
+    return _getUriValue(getAttributeValue(HREF));
+  }
+
+  public URI getResolvedHref() throws URISyntaxException {
+    return _resolve(getResolvedBaseUri(), getHref());
+  }
+
+  public String[] getAccept() {
+    String[] list = getChildText(ACCEPT).split(",");
+    for (int n = 0; n < list.length; n++) {
+      list[n] = list[n].trim();
+    }
+    return list;
+  }
+
+  public boolean accepts(String mediaType) {
+    for (String a : getAccept()) {
+      if (MimeTypeHelper.isMatch(a, mediaType)) return true;
+    }
+    return false;
+  }
+
+  public boolean accepts(MimeType mediaType) {
+    return accepts(mediaType.toString());
+  }
+
+  public void setTitle(String title) {
+    throw readOnly();
+  }
+
+  public void setHref(String href) {
+    throw readOnly();
+  }
+
+  public void setAccept(String[] mediaRanges) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,191 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import javax.activation.DataHandler;
+import javax.activation.MimeType;
+import javax.activation.URLDataSource;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Content;
+import org.apache.abdera.model.Div;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.stax.util.Base64Codec;
+import org.apache.axiom.attachments.DataHandlerUtils;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotContent 
+  extends SnapshotElement 
+  implements Content {
+
+  private static final long serialVersionUID = -6208423380271540437L;
+
+  private final Type type;
+  
+  SnapshotContent(Base parent, int index, OMElement source, Type type) {
+    super(parent, index, source);
+    this.type = type;
+  }
+
+  public Type getContentType() {
+    return type;
+  }
+
+  public <T extends Element>T getValueElement() {
+    return this.<T>getFirstChild();
+  }
+
+  public MimeType getMimeType() {
+    String type = getAttributeValue(TYPE);
+    try {
+      return (type != null) ? new MimeType(type) : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  public URI getSrc() throws URISyntaxException {
+    return _getUriValue(getAttributeValue(SRC));
+  }
+
+  public URI getResolvedSrc() throws URISyntaxException {
+    return _resolve(getResolvedBaseUri(), getSrc());
+  }
+
+  public DataHandler getDataHandler() {
+    if (!Type.MEDIA.equals(type)) 
+      throw new UnsupportedOperationException(
+        "Only supported on media content entries");
+    MimeType type = getMimeType();
+    URL src = null;
+    try {
+      src = getSrc().toURL();
+    } catch (Exception e) {}
+    if (src == null) {
+      return (DataHandler)DataHandlerUtils.getDataHandlerFromText(
+        getText(), (type != null) ? type.toString() : null);
+    }
+    return new DataHandler(new URLDataSource(src));
+  }
+
+  public void writeDecodedTo(OutputStream out) throws IOException {
+    if (!Type.MEDIA.equals(type)) 
+      throw new UnsupportedOperationException(
+        "Only supported on media content entries");
+    if (getAttributeValue(SRC) != null) {
+      getDataHandler().writeTo(out);
+      return;
+    }
+    Base64Codec decoder = new Base64Codec(out);
+    decoder.decode(getText());
+    decoder.finish();
+  }
+
+  public void writeDecodedTo(WritableByteChannel channel) throws IOException {
+    writeDecodedTo(Channels.newOutputStream(channel));
+  }
+
+  public String getValue() {
+    if (Type.XHTML.equals(type)) {
+      Element div = getFirstChild(DIV);
+      return (div instanceof Div) ? ((Div)div).getValue() : null;
+    } else if (Type.XML.equals(type)) {
+      Element el = getFirstChild();
+      return (el != null) ? el.toString() : null;
+    }
+    return (type != null) ? getText() : null;
+  }
+
+  public String getWrappedValue() {
+    if (Type.XHTML.equals(type)) {
+      Element div = getFirstChild(DIV);
+      return (div != null) ? div.toString() : null;
+    }
+    return getText();
+  }
+
+  @Override
+  public URI getBaseUri() throws URISyntaxException {
+    if (Type.XHTML.equals(type)) {
+      Element el = getValueElement();
+      String base = (el != null) ? el.getAttributeValue(BASE) : null;
+      if (base != null) {
+        return (getAttributeValue(BASE) != null) ?
+          super.getBaseUri().resolve(base) : _getUriValue(base);
+      }
+    }
+    return super.getBaseUri();
+  }
+
+  @Override
+  public URI getResolvedBaseUri() throws URISyntaxException {
+    if (Type.XHTML.equals(type)) {
+      Element el = getValueElement();
+      String base = (el != null) ? el.getAttributeValue(BASE) : null;
+      if (base != null) return super.getResolvedBaseUri().resolve(base);
+    }
+    return super.getResolvedBaseUri();
+  }
+
+  @Override
+  public String getLanguage() {
+    if (Type.XHTML.equals(type)) {
+      Element el = getValueElement();
+      String lang = (el != null) ? el.getAttributeValue(LANG) : null;
+      if (lang != null) return lang;
+    }
+    return super.getLanguage();
+  }
+
+  public void setContentType(Type type) {
+    throw readOnly();
+  }
+
+  public <T extends Element>void setValueElement(T value) {
+    throw readOnly();
+  }
+
+  public void setMimeType(String type) {
+    throw readOnly();
+  }
+
+  public void setSrc(String src) {
+    throw readOnly();
+  }
+
+  public void setDataHandler(DataHandler dataHandler) {
+    throw readOnly();
+  }
+
+  public void setValue(String value) {
+    throw readOnly();
+  }
+
+  public void setWrappedValue(String wrappedValue) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Control;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotControl 
+  extends SnapshotExtensibleElement 
+  implements Control {
+
+  private static final long serialVersionUID = 5862319574530416327L;
+
+  SnapshotControl(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public boolean isDraft() {
+    String value = getChildText(DRAFT);
+    return (value != null && YES.equalsIgnoreCase(value));
+  }
+
+  public void setDraft(boolean draft) {
+    throw readOnly();
+  }
+
+  public void unsetDraft() {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.abdera.model.AtomDate;
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.DateTime;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * The date is parsed once, when the snapshot is made, and each call 
+ * returns a new value for it since AtomDate, Date and Calendar are all
+ * mutable.  A value that cannot be parsed fails when it is read, as it 
+ * does on the live element, not when the snapshot is made
+ */
+class SnapshotDateTime 
+  extends SnapshotElement 
+  implements DateTime {
+
+  private static final long serialVersionUID = 7207366581829212361L;
+  
+  private static final long NOT_PARSED = Long.MIN_VALUE;
+  
+  private final long time;
+  
+  SnapshotDateTime(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+    this.time = parse(getText());
+  }
+  
+  private static long parse(String value) {
+    try {
+      return (value.length() > 0) ? AtomDate.parse(value).getTime() : NOT_PARSED;
+    } catch (RuntimeException e) {
+      return NOT_PARSED;
+    }
+  }
+
+  public AtomDate getValue() {
+    if (time != NOT_PARSED) return AtomDate.valueOf(time);
+    String value = getText();
+    return (value.length() > 0) ? AtomDate.valueOf(value) : null;
+  }
+
+  public Date getDate() {
+    AtomDate ad = getValue();
+    return (ad != null) ? ad.getDate() : null;
+  }
+
+  public Calendar getCalendar() {
+    AtomDate ad = getValue();
+    return (ad != null) ? ad.getCalendar() : null;
+  }
+
+  public long getTime() {
+    AtomDate ad = getValue();
+    return (ad != null) ? ad.getTime() : -1;
+  }
+
+  public String getString() {
+    AtomDate ad = getValue();
+    return (ad != null) ? ad.getValue() : null;
+  }
+
+  public void setValue(AtomDate dateTime) {
+    throw readOnly();
+  }
+
+  public void setDate(Date date) {
+    throw readOnly();
+  }
+
+  public void setCalendar(Calendar date) {
+    throw readOnly();
+  }
+
+  public void setTime(long date) {
+    throw readOnly();
+  }
+
+  public void setString(String date) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Div;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotDiv 
+  extends SnapshotExtensibleElement 
+  implements Div {
+
+  private static final long serialVersionUID = -2319449893405850433L;
+
+  SnapshotDiv(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public String[] getXhtmlClass() {
+    String _class = getAttributeValue(CLASS);
+    return (_class != null) ? _class.split(" ") : null;
+  }
+
+  public String getId() {
+    return getAttributeValue(AID);
+  }
+
+  public String getTitle() {
+    return getAttributeValue(ATITLE);
+  }
+
+  /**
+   * Returns the serialized children of the div
+   */
+  public String getValue() {
+    StringWriter writer = new StringWriter();
+    try {
+      SnapshotWriter.writeChildren(this, writer);
+    } catch (IOException e) {}
+    return writer.toString();
+  }
+
+  public void setId(String id) {
+    throw readOnly();
+  }
+
+  public void setTitle(String title) {
+    throw readOnly();
+  }
+
+  public void setXhtmlClass(String[] classes) {
+    throw readOnly();
+  }
+
+  public void setValue(String value) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.Date;
+
+import javax.activation.MimeType;
+
+import org.apache.abdera.factory.Factory;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.Parser;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Immutable snapshot of a Document
+ */
+class SnapshotDocument<T extends Element> 
+  implements Document<T> {
+
+  private static final long serialVersionUID = -1383410873580287407L;
+  
+  private final T root;
+  private final URI base;
+  private final String charset;
+  private final String contentType;
+  private final long lastModified;
+  
+  @SuppressWarnings("unchecked")
+  SnapshotDocument(Document<?> source, Element root, URI base) {
+    MimeType type = (source != null) ? source.getContentType() : null;
+    Date modified = (source != null) ? source.getLastModified() : null;
+    this.base = base;
+    this.charset = (source != null) ? source.getCharset() : null;
+    this.contentType = (type != null) ? type.toString() : null;
+    this.lastModified = (modified != null) ? modified.getTime() : -1;
+    this.root = (T) Snapshot.element(this, 0, (OMElement)root);
+  }
+  
+  public T getRoot() {
+    return root;
+  }
+
+  public void setRoot(T root) {
+    throw SnapshotElement.readOnly();
+  }
+
+  public URI getBaseUri() {
+    return base;
+  }
+
+  public void setBaseUri(String base) {
+    throw SnapshotElement.readOnly();
+  }
+
+  public MimeType getContentType() {
+    try {
+      return (contentType != null) ? new MimeType(contentType) : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  public void setContentType(String contentType) {
+    throw SnapshotElement.readOnly();
+  }
+
+  public Date getLastModified() {
+    return (lastModified != -1) ? new Date(lastModified) : null;
+  }
+
+  public void setLastModified(Date lastModified) {
+    throw SnapshotElement.readOnly();
+  }
+
+  public String getCharset() {
+    return charset;
+  }
+
+  public void setCharset(String charset) {
+    throw SnapshotElement.readOnly();
+  }
+
+  public Document<T> freeze() {
+    return this;
+  }
+
+  public Document<T> complete() {
+    return this;
+  }
+
+  public boolean isReadOnly() {
+    return true;
+  }
+  
+  public void writeTo(OutputStream out) throws IOException {
+    Writer writer = new OutputStreamWriter(
+      out, (charset != null) ? charset : "UTF-8");
+    writeTo(writer);
+    writer.flush();
+  }
+
+  public void writeTo(Writer writer) throws IOException {
+    writer.write("<?xml version='1.0' encoding='");
+    writer.write((charset != null) ? charset : "UTF-8");
+    writer.write("'?>");
+    SnapshotWriter.write((SnapshotElement)root, writer);
+  }
+  
+  /**
+   * Returns a mutable copy of the document
+   */
+  public Object clone() {
+    Document<T> document = 
+      Parser.INSTANCE.parse(new StringReader(root.toString()), base);
+    if (charset != null) document.setCharset(charset);
+    return document;
+  }
+
+  public Factory getFactory() {
+    return Factory.INSTANCE;
+  }
+  
+  public String toString() {
+    StringWriter writer = new StringWriter();
+    try {
+      writeTo(writer);
+    } catch (IOException e) {}
+    return writer.toString();
+  }
+  
+}
@@ -0,0 +1,343 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera.factory.Factory;
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.parser.Parser;
+import org.apache.abdera.util.Constants;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Immutable snapshot of an Element.  An element is its QName, its parent,
+ * its position among the parent's children, its attributes as QName/value
+ * pairs, its namespace declarations as prefix/URI pairs and its children 
+ * as an array of Strings and elements.  Every field is final and each 
+ * child is created inside its parent's constructor, so a snapshot is safely
+ * published to other threads however the reference to it is shared
+ */
+class SnapshotElement 
+  implements Element, 
+             Constants {
+
+  private static final long serialVersionUID = 2911467327433232718L;
+
+  private final Base parent;
+  private final int index;
+  private final QName qname;
+  private final Object[] attributes;
+  private final String[] namespaces;
+  private final Object[] children;
+  
+  SnapshotElement(Base parent, int index, OMElement source) {
+    this.parent = parent;
+    this.index = index;
+    this.qname = Snapshot.qname(source.getQName());
+    this.attributes = Snapshot.attributes(source);
+    this.namespaces = Snapshot.namespaces(source);
+    this.children = Snapshot.children(this, source);
+  }
+  
+  static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("Snapshots are read-only");
+  }
+  
+  Object[] attributes() {
+    return attributes;
+  }
+  
+  String[] namespaces() {
+    return namespaces;
+  }
+  
+  Object[] children() {
+    return children;
+  }
+  
+  @SuppressWarnings("unchecked")
+  public <T extends Base>T getParentElement() {
+    return (T)parent;
+  }
+
+  public void setParentElement(Element parent) {
+    throw readOnly();
+  }
+
+  public <T extends Element>T getPreviousSibling() {
+    return this.<T>sibling(-1, null);
+  }
+
+  public <T extends Element>T getNextSibling() {
+    return this.<T>sibling(1, null);
+  }
+
+  public <T extends Element>T getPreviousSibling(QName qname) {
+    return this.<T>sibling(-1, qname);
+  }
+
+  public <T extends Element>T getNextSibling(QName qname) {
+    return this.<T>sibling(1, qname);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Element>T sibling(int step, QName qname) {
+    if (!(parent instanceof SnapshotElement)) return null;
+    Object[] siblings = ((SnapshotElement)parent).children;
+    for (int n = index + step; n >= 0 && n < siblings.length; n += step) {
+      Object node = siblings[n];
+      if (node instanceof SnapshotElement && 
+          (qname == null || qname.equals(((SnapshotElement)node).qname)))
+        return (T)node;
+    }
+    return null;
+  }
+  
+  public <T extends Element>T getFirstChild() {
+    return this.<T>getFirstChild(null);
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Element>T getFirstChild(QName qname) {
+    for (Object node : children) {
+      if (node instanceof SnapshotElement && 
+          (qname == null || qname.equals(((SnapshotElement)node).qname)))
+        return (T)node;
+    }
+    return null;
+  }
+  
+  /**
+   * Returns the child elements with the given name, or all child elements
+   * if the name is null
+   */
+  @SuppressWarnings("unchecked")
+  protected <T extends Element>List<T> getChildren(QName qname) {
+    List<T> list = new ArrayList<T>();
+    for (Object node : children) {
+      if (node instanceof SnapshotElement && 
+          (qname == null || qname.equals(((SnapshotElement)node).qname)))
+        list.add((T)node);
+    }
+    return Collections.unmodifiableList(list);
+  }
+  
+  protected String getChildText(QName qname) {
+    Element element = getFirstChild(qname);
+    return (element != null) ? element.getText() : null;
+  }
+
+  public QName getQName() {
+    return qname;
+  }
+
+  public String getLanguage() {
+    return getAttributeValue(LANG);
+  }
+
+  public void setLanguage(String language) {
+    throw readOnly();
+  }
+
+  public URI getBaseUri() throws URISyntaxException {
+    URI uri = _getUriValue(getAttributeValue(BASE));
+    if (uri == null) {
+      if (parent instanceof Element) {
+        uri = ((Element)parent).getBaseUri();
+      } else if (parent instanceof Document) {
+        uri = ((Document)parent).getBaseUri();
+      }
+    }
+    return uri;
+  }
+
+  public URI getResolvedBaseUri() throws URISyntaxException {
+    URI baseUri = getInheritedBaseUri();
+    URI uri = _getUriValue(getAttributeValue(BASE));
+    if (uri == null) return baseUri;
+    return (baseUri != null) ? baseUri.resolve(uri) : uri;
+  }
+  
+  private URI getInheritedBaseUri() throws URISyntaxException {
+    if (parent instanceof Element) 
+      return ((Element)parent).getResolvedBaseUri();
+    else if (parent instanceof Document)
+      return ((Document)parent).getBaseUri();
+    return null;
+  }
+  
+  public void setBaseUri(URI base) {
+    throw readOnly();
+  }
+
+  public void setBaseUri(String base) {
+    throw readOnly();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Element>Document<T> getDocument() {
+    if (parent instanceof Element) 
+      return ((Element)parent).getDocument();
+    return (parent instanceof Document) ? (Document<T>)parent : null;
+  }
+
+  public String getAttributeValue(String name) {
+    return getAttributeValue(new QName(name));
+  }
+
+  public String getAttributeValue(QName qname) {
+    if (attributes != null) {
+      for (int n = 0; n < attributes.length; n += 2) {
+        if (qname.equals(attributes[n])) 
+          return (String)attributes[n + 1];
+      }
+    }
+    return null;
+  }
+
+  public List<QName> getAttributes() {
+    List<QName> list = new ArrayList<QName>();
+    if (attributes != null) {
+      for (int n = 0; n < attributes.length; n += 2) 
+        list.add((QName)attributes[n]);
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  public List<QName> getExtensionAttributes() {
+    List<QName> list = new ArrayList<QName>();
+    if (attributes != null) {
+      for (int n = 0; n < attributes.length; n += 2) {
+        String namespace = ((QName)attributes[n]).getNamespaceURI();
+        if (!namespace.equals(qname.getNamespaceURI()) && 
+            !namespace.equals(""))
+          list.add((QName)attributes[n]);
+      }
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  public void removeAttribute(QName qname) {
+    throw readOnly();
+  }
+
+  public void setAttributeValue(String name, String value) {
+    throw readOnly();
+  }
+
+  public void setAttributeValue(QName qname, String value) {
+    throw readOnly();
+  }
+
+  public void discard() {
+    throw readOnly();
+  }
+
+  /**
+   * Returns the text children of this element, not including the text of
+   * descendant elements
+   */
+  public String getText() {
+    String text = null;
+    StringBuffer buf = null;
+    for (Object node : children) {
+      if (node instanceof String) {
+        if (text == null) {
+          text = (String)node;
+        } else {
+          if (buf == null) buf = new StringBuffer(text);
+          buf.append((String)node);
+        }
+      }
+    }
+    return (buf != null) ? buf.toString() : (text != null) ? text : "";
+  }
+
+  public void setText(String text) {
+    throw readOnly();
+  }
+
+  public void writeTo(OutputStream out) throws IOException {
+    Document doc = getDocument();
+    String charset = (doc != null) ? doc.getCharset() : null;
+    Writer writer = new OutputStreamWriter(
+      out, (charset != null) ? charset : "UTF-8");
+    writeTo(writer);
+    writer.flush();
+  }
+
+  public void writeTo(Writer writer) throws IOException {
+    SnapshotWriter.write(this, writer);
+  }
+  
+  /**
+   * Returns a mutable copy of this element
+   */
+  public Object clone() {
+    URI base = null;
+    try {
+      base = getInheritedBaseUri();
+    } catch (URISyntaxException e) {}
+    Document<Element> doc = 
+      Parser.INSTANCE.parse(new StringReader(toString()), base);
+    return doc.getRoot();
+  }
+
+  public Factory getFactory() {
+    return Factory.INSTANCE;
+  }
+  
+  public String toString() {
+    StringWriter writer = new StringWriter();
+    try {
+      writeTo(writer);
+    } catch (IOException e) {}
+    return writer.toString();
+  }
+  
+  protected URI _getUriValue(String v) throws URISyntaxException {
+    return (v != null) ? new URI(v) : null;
+  }
+  
+  protected URI _resolve(URI base, URI value) {
+    if (value == null) return null;
+    if ("".equals(value.toString()) || 
+        "#".equals(value.toString()) ||
+        ".".equals(value.toString()) ||
+        "./".equals(value.toString())) return base;
+    if (base == null) return value;
+    if ("".equals(base.getPath())) base = base.resolve("/");
+    return base.resolve(value);
+  }
+
+}
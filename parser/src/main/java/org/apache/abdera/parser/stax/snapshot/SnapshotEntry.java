@@ -0,0 +1,393 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Date;
+import java.util.List;
+
+import javax.activation.DataHandler;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Category;
+import org.apache.abdera.model.Content;
+import org.apache.abdera.model.Control;
+import org.apache.abdera.model.DateTime;
+import org.apache.abdera.model.Div;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.IRI;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.model.Person;
+import org.apache.abdera.model.Source;
+import org.apache.abdera.model.Text;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotEntry 
+  extends SnapshotExtensibleElement 
+  implements Entry {
+
+  private static final long serialVersionUID = -6983164264826421437L;
+
+  SnapshotEntry(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public Person getAuthor() {
+    return getFirstChild(AUTHOR);
+  }
+
+  public List<Person> getAuthors() {
+    return getChildren(AUTHOR);
+  }
+
+  public List<Category> getCategories() {
+    return getChildren(CATEGORY);
+  }
+
+  public List<Category> getCategories(String scheme) {
+    return selectCategories(scheme);
+  }
+
+  public Content getContentElement() {
+    return getFirstChild(CONTENT);
+  }
+
+  public String getContent() {
+    Content content = getContentElement();
+    return (content != null) ? content.getValue() : null;
+  }
+
+  public Content.Type getContentType() {
+    Content content = getContentElement();
+    return (content != null) ? content.getContentType() : null;
+  }
+
+  public List<Person> getContributors() {
+    return getChildren(CONTRIBUTOR);
+  }
+
+  public IRI getIdElement() {
+    return getFirstChild(ID);
+  }
+
+  public URI getId() throws URISyntaxException {
+    IRI id = getIdElement();
+    return (id != null) ? id.getValue() : null;
+  }
+
+  public List<Link> getLinks() {
+    return getChildren(LINK);
+  }
+
+  public List<Link> getLinks(String rel) {
+    return selectLinks(rel);
+  }
+
+  public Link getLink(String rel) {
+    return selectLink(rel);
+  }
+
+  public Link getAlternateLink() {
+    return selectLink(Link.REL_ALTERNATE);
+  }
+
+  public Link getEnclosureLink() {
+    return selectLink(Link.REL_ENCLOSURE);
+  }
+
+  public Link getEditLink() {
+    return selectLink(Link.REL_EDIT);
+  }
+
+  public DateTime getPublishedElement() {
+    return getFirstChild(PUBLISHED);
+  }
+
+  public Date getPublished() {
+    DateTime dte = getPublishedElement();
+    return (dte != null) ? dte.getDate() : null;
+  }
+
+  public Text getRightsElement() {
+    return getFirstChild(RIGHTS);
+  }
+
+  public String getRights() {
+    return getTextValue(RIGHTS);
+  }
+
+  public Text.Type getRightsType() {
+    return getTextType(RIGHTS);
+  }
+
+  public Source getSource() {
+    return getFirstChild(SOURCE);
+  }
+
+  public Text getSummaryElement() {
+    return getFirstChild(SUMMARY);
+  }
+
+  public String getSummary() {
+    return getTextValue(SUMMARY);
+  }
+
+  public Text.Type getSummaryType() {
+    return getTextType(SUMMARY);
+  }
+
+  public Text getTitleElement() {
+    return getFirstChild(TITLE);
+  }
+
+  public String getTitle() {
+    return getTextValue(TITLE);
+  }
+
+  public Text.Type getTitleType() {
+    return getTextType(TITLE);
+  }
+
+  public DateTime getUpdatedElement() {
+    return getFirstChild(UPDATED);
+  }
+
+  public Date getUpdated() {
+    DateTime dte = getUpdatedElement();
+    return (dte != null) ? dte.getDate() : null;
+  }
+
+  public Control getControl() {
+    return getFirstChild(CONTROL);
+  }
+
+  public Entry freeze() {
+    return this;
+  }
+
+  public void addAuthor(Person person) {
+    throw readOnly();
+  }
+
+  public Person addAuthor(String name) {
+    throw readOnly();
+  }
+
+  public Person addAuthor(String name, String email, String uri) {
+    throw readOnly();
+  }
+
+  public void addCategory(Category category) {
+    throw readOnly();
+  }
+
+  public Category addCategory(String term) {
+    throw readOnly();
+  }
+
+  public Category addCategory(String scheme, String term, String label) {
+    throw readOnly();
+  }
+
+  public void setContentElement(Content content) {
+    throw readOnly();
+  }
+
+  public Content setContent(String value) {
+    throw readOnly();
+  }
+
+  public Content setContentAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Content setContentAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Content setContent(String value, Content.Type type) {
+    throw readOnly();
+  }
+
+  public Content setContent(Element value) {
+    throw readOnly();
+  }
+
+  public Content setContent(Element element, String mediaType) {
+    throw readOnly();
+  }
+
+  public Content setContent(DataHandler dataHandler) {
+    throw readOnly();
+  }
+
+  public Content setContent(DataHandler dataHandler, String mediatype) {
+    throw readOnly();
+  }
+
+  public Content setContent(String value, String mediatype) {
+    throw readOnly();
+  }
+
+  public void addContributor(Person person) {
+    throw readOnly();
+  }
+
+  public Person addContributor(String name) {
+    throw readOnly();
+  }
+
+  public Person addContributor(String name, String email, String uri) {
+    throw readOnly();
+  }
+
+  public void setIdElement(IRI id) {
+    throw readOnly();
+  }
+
+  public IRI setId(String value) {
+    throw readOnly();
+  }
+
+  public IRI setId(String value, boolean normalize) {
+    throw readOnly();
+  }
+
+  public void addLink(Link link) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href, String rel) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href, String rel, String type, String title, String hreflang, long length) {
+    throw readOnly();
+  }
+
+  public void setPublishedElement(DateTime dateTime) {
+    throw readOnly();
+  }
+
+  public DateTime setPublished(Date value) {
+    throw readOnly();
+  }
+
+  public DateTime setPublished(String value) {
+    throw readOnly();
+  }
+
+  public void setRightsElement(Text text) {
+    throw readOnly();
+  }
+
+  public Text setRights(String value) {
+    throw readOnly();
+  }
+
+  public Text setRightsAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setRightsAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setRights(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setRights(Div value) {
+    throw readOnly();
+  }
+
+  public void setSource(Source source) {
+    throw readOnly();
+  }
+
+  public void setSummaryElement(Text text) {
+    throw readOnly();
+  }
+
+  public Text setSummary(String value) {
+    throw readOnly();
+  }
+
+  public Text setSummaryAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setSummaryAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setSummary(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setSummary(Div value) {
+    throw readOnly();
+  }
+
+  public void setTitleElement(Text title) {
+    throw readOnly();
+  }
+
+  public Text setTitle(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitleAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitleAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitle(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setTitle(Div value) {
+    throw readOnly();
+  }
+
+  public void setUpdatedElement(DateTime updated) {
+    throw readOnly();
+  }
+
+  public DateTime setUpdated(Date value) {
+    throw readOnly();
+  }
+
+  public DateTime setUpdated(String value) {
+    throw readOnly();
+  }
+
+  public void setControl(Control control) {
+    throw readOnly();
+  }
+
+}
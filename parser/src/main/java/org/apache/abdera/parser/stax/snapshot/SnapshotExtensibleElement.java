@@ -0,0 +1,172 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Category;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.model.ExtensibleElement;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.model.Text;
+import org.apache.abdera.parser.stax.FOMLink;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotExtensibleElement 
+  extends SnapshotElement 
+  implements ExtensibleElement {
+
+  private static final long serialVersionUID = -1502287617946370838L;
+
+  SnapshotExtensibleElement(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public List<Element> getExtensions() {
+    return getExtensionList(null);
+  }
+
+  public List<Element> getExtensions(String uri) {
+    return getExtensionList(uri);
+  }
+
+  /**
+   * An extension is a child element from a namespace other than this
+   * element's own 
+   */
+  private List<Element> getExtensionList(String uri) {
+    List<Element> list = new ArrayList<Element>();
+    String namespace = getQName().getNamespaceURI();
+    if (namespace.length() > 0) {
+      for (Object node : children()) {
+        if (node instanceof SnapshotElement) {
+          String ns = ((SnapshotElement)node).getQName().getNamespaceURI();
+          if (!ns.equals(namespace) && (uri == null || ns.equals(uri))) 
+            list.add((Element)node);
+        }
+      }
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  public <T extends Element>List<T> getExtensions(QName qname) {
+    return getChildren(qname);
+  }
+
+  public <T extends Element>T getExtension(QName qname) {
+    return this.<T>getFirstChild(qname);
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Element>T getExtension(Class<T> _class) {
+    for (Element ext : getExtensions()) {
+      if (_class.isAssignableFrom(ext.getClass())) return (T)ext;
+    }
+    return null;
+  }
+
+  public String getSimpleExtension(QName qname) {
+    return getChildText(qname);
+  }
+
+  public String getSimpleExtension(
+    String namespace, 
+    String localPart, 
+    String prefix) {
+      return getSimpleExtension(new QName(namespace, localPart, prefix));
+  }
+
+  /**
+   * Selects links the same way FOMLinkIterator does: relations are 
+   * compared by their IANA equivalent and a link without a rel attribute
+   * is an alternate link
+   */
+  protected List<Link> selectLinks(String rel) {
+    String value = (rel != null) ? FOMLink.getRelEquiv(rel) : Link.REL_ALTERNATE;
+    List<Link> list = new ArrayList<Link>();
+    for (Object node : children()) {
+      if (node instanceof Link) {
+        String val = FOMLink.getRelEquiv(((Link)node).getAttributeValue(REL));
+        if ((val == null && value.equalsIgnoreCase(Link.REL_ALTERNATE)) ||
+            (val != null && val.equalsIgnoreCase(value)))
+          list.add((Link)node);
+      }
+    }
+    return Collections.unmodifiableList(list);
+  }
+  
+  protected List<Category> selectCategories(String scheme) {
+    List<Category> list = new ArrayList<Category>();
+    for (Object node : children()) {
+      if (node instanceof Category) {
+        String val = ((Category)node).getAttributeValue(SCHEME);
+        if ((val == null) ? scheme == null : val.equals(scheme))
+          list.add((Category)node);
+      }
+    }
+    return Collections.unmodifiableList(list);
+  }
+  
+  protected Link selectLink(String rel) {
+    List<Link> links = selectLinks(rel);
+    return (links.size() > 0) ? links.get(0) : null;
+  }
+
+  protected String getTextValue(QName qname) {
+    Text text = getFirstChild(qname);
+    return (text != null) ? text.getValue() : null;
+  }
+  
+  protected Text.Type getTextType(QName qname) {
+    Text text = getFirstChild(qname);
+    return (text != null) ? text.getTextType() : null;
+  }
+
+  public void addExtension(Element extension) {
+    throw readOnly();
+  }
+
+  public <T extends Element>T addExtension(QName qname) {
+    throw readOnly();
+  }
+
+  public <T extends Element>T addExtension(
+    String namespace, 
+    String localpart, 
+    String prefix) {
+      throw readOnly();
+  }
+
+  public Element addSimpleExtension(QName qname, String value) {
+    throw readOnly();
+  }
+
+  public Element addSimpleExtension(
+    String namespace, 
+    String localPart, 
+    String prefix, 
+    String value) {
+      throw readOnly();
+  }
+
+}
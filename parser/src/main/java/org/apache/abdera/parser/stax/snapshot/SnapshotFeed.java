@@ -0,0 +1,107 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.model.Source;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotFeed 
+  extends SnapshotSource 
+  implements Feed {
+
+  private static final long serialVersionUID = 7335406524470227925L;
+
+  SnapshotFeed(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public List<Entry> getEntries() {
+    return getChildren(ENTRY);
+  }
+
+  /**
+   * Returns a mutable Source copied from this feed's metadata 
+   */
+  public Source getAsSource() {
+    return ((Feed)clone()).getAsSource();
+  }
+
+  public Map<Link,URI> getResolvedHrefs() throws URISyntaxException {
+    Map<Link,URI> hrefs = new LinkedHashMap<Link,URI>();
+    resolveHrefs(this, hrefs);
+    return hrefs;
+  }
+  
+  private static void resolveHrefs(
+    SnapshotElement element, 
+    Map<Link,URI> hrefs) 
+      throws URISyntaxException {
+    for (Object node : element.children()) {
+      if (node instanceof Link) {
+        hrefs.put((Link)node, ((Link)node).getResolvedHref());
+      } else if (node instanceof Entry || node instanceof Source) {
+        resolveHrefs((SnapshotElement)node, hrefs);
+      }
+    }
+  }
+
+  public Feed freeze() {
+    return this;
+  }
+
+  public void addEntry(Entry entry) {
+    throw readOnly();
+  }
+
+  public Entry addEntry() {
+    throw readOnly();
+  }
+
+  public void insertEntry(Entry entry) {
+    throw readOnly();
+  }
+
+  public Entry insertEntry() {
+    throw readOnly();
+  }
+
+  public void addEntries(Collection<Entry> entries) {
+    throw readOnly();
+  }
+
+  public void sortEntries(Comparator<Entry> comparator) {
+    throw readOnly();
+  }
+
+  public void sortEntriesByUpdated(boolean descending) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Generator;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotGenerator 
+  extends SnapshotElement 
+  implements Generator {
+
+  private static final long serialVersionUID = -8263532781538307384L;
+
+  SnapshotGenerator(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public URI getUri() throws URISyntaxException {
+    return _getUriValue(getAttributeValue(AURI));
+  }
+
+  public URI getResolvedUri() throws URISyntaxException {
+    return _resolve(getResolvedBaseUri(), getUri());
+  }
+
+  public String getVersion() {
+    return getAttributeValue(VERSION);
+  }
+
+  public void setUri(String uri) {
+    throw readOnly();
+  }
+
+  public void setVersion(String version) {
+    throw readOnly();
+  }
+
+}
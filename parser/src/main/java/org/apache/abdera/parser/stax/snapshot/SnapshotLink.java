@@ -0,0 +1,101 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import javax.activation.MimeType;
+import javax.activation.MimeTypeParseException;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Link;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotLink 
+  extends SnapshotExtensibleElement 
+  implements Link {
+
+  private static final long serialVersionUID = 4870712381432893427L;
+
+  /**
+   * URI is immutable, so the parsed href is shared once it has been read
+   */
+  private volatile URI href;
+
+  SnapshotLink(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public URI getHref() throws URISyntaxException {
+    URI uri = href;
+    if (uri == null) href = uri = _getUriValue(getAttributeValue(HREF));
+    return uri;
+  }
+
+  public URI getResolvedHref() throws URISyntaxException {
+    return _resolve(getResolvedBaseUri(), getHref());
+  }
+
+  public String getRel() {
+    return getAttributeValue(REL);
+  }
+
+  public MimeType getMimeType() throws MimeTypeParseException {
+    String type = getAttributeValue(TYPE);
+    return (type != null) ? new MimeType(type) : null;
+  }
+
+  public String getHrefLang() {
+    return getAttributeValue(HREFLANG);
+  }
+
+  public String getTitle() {
+    return getAttributeValue(ATITLE);
+  }
+
+  public long getLength() {
+    String l = getAttributeValue(LENGTH);
+    return (l != null) ? Long.valueOf(l) : -1;
+  }
+
+  public void setHref(String href) {
+    throw readOnly();
+  }
+
+  public void setRel(String rel) {
+    throw readOnly();
+  }
+
+  public void setMimeType(String type) {
+    throw readOnly();
+  }
+
+  public void setHrefLang(String lang) {
+    throw readOnly();
+  }
+
+  public void setTitle(String title) {
+    throw readOnly();
+  }
+
+  public void setLength(long length) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URISyntaxException;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Element;
+import org.apache.abdera.model.IRI;
+import org.apache.abdera.model.Person;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotPerson 
+  extends SnapshotExtensibleElement 
+  implements Person {
+
+  private static final long serialVersionUID = -3364906328917512410L;
+
+  SnapshotPerson(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public Element getNameElement() {
+    return getFirstChild(NAME);
+  }
+
+  public String getName() {
+    return getChildText(NAME);
+  }
+
+  public Element getEmailElement() {
+    return getFirstChild(EMAIL);
+  }
+
+  public String getEmail() {
+    return getChildText(EMAIL);
+  }
+
+  public IRI getUriElement() {
+    return getFirstChild(URI);
+  }
+
+  public java.net.URI getUri() throws URISyntaxException {
+    IRI iri = getUriElement();
+    return (iri != null) ? iri.getValue() : null;
+  }
+
+  public void setNameElement(Element element) {
+    throw readOnly();
+  }
+
+  public Element setName(String name) {
+    throw readOnly();
+  }
+
+  public void setEmailElement(Element element) {
+    throw readOnly();
+  }
+
+  public Element setEmail(String email) {
+    throw readOnly();
+  }
+
+  public void setUriElement(IRI uri) {
+    throw readOnly();
+  }
+
+  public IRI setUri(String uri) {
+    throw readOnly();
+  }
+
+}
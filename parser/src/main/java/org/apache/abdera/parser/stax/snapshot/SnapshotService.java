@@ -0,0 +1,62 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.util.List;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Collection;
+import org.apache.abdera.model.Service;
+import org.apache.abdera.model.Workspace;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotService 
+  extends SnapshotExtensibleElement 
+  implements Service {
+
+  private static final long serialVersionUID = 1306913462341583428L;
+
+  SnapshotService(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public List<Workspace> getWorkspaces() {
+    return getChildren(WORKSPACE);
+  }
+
+  public Workspace getWorkspace(String title) {
+    for (Workspace w : getWorkspaces()) {
+      if (w.getTitle().equals(title)) return w;
+    }
+    return null;
+  }
+
+  public Collection getCollection(String workspace, String collection) {
+    Workspace w = getWorkspace(workspace);
+    return (w != null) ? w.getCollection(collection) : null;
+  }
+
+  public void addWorkspace(Workspace workspace) {
+    throw readOnly();
+  }
+
+  public Workspace addWorkspace(String title) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,340 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Category;
+import org.apache.abdera.model.DateTime;
+import org.apache.abdera.model.Div;
+import org.apache.abdera.model.Generator;
+import org.apache.abdera.model.IRI;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.model.Person;
+import org.apache.abdera.model.Source;
+import org.apache.abdera.model.Text;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotSource 
+  extends SnapshotExtensibleElement 
+  implements Source {
+
+  private static final long serialVersionUID = -2836436212436232513L;
+
+  SnapshotSource(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public Person getAuthor() {
+    return getFirstChild(AUTHOR);
+  }
+
+  public List<Person> getAuthors() {
+    return getChildren(AUTHOR);
+  }
+
+  public List<Category> getCategories() {
+    return getChildren(CATEGORY);
+  }
+
+  public List<Category> getCategories(String scheme) {
+    return selectCategories(scheme);
+  }
+
+  public List<Person> getContributors() {
+    return getChildren(CONTRIBUTOR);
+  }
+
+  public Generator getGenerator() {
+    return getFirstChild(GENERATOR);
+  }
+
+  public IRI getIconElement() {
+    return getFirstChild(ICON);
+  }
+
+  public URI getIcon() throws URISyntaxException {
+    IRI iri = getIconElement();
+    return (iri != null) ? iri.getValue() : null;
+  }
+
+  public IRI getIdElement() {
+    return getFirstChild(ID);
+  }
+
+  public URI getId() throws URISyntaxException {
+    IRI id = getIdElement();
+    return (id != null) ? id.getValue() : null;
+  }
+
+  public List<Link> getLinks() {
+    return getChildren(LINK);
+  }
+
+  public List<Link> getLinks(String rel) {
+    return selectLinks(rel);
+  }
+
+  public Link getLink(String rel) {
+    return selectLink(rel);
+  }
+
+  public Link getSelfLink() {
+    return selectLink(Link.REL_SELF);
+  }
+
+  public Link getAlternateLink() {
+    return selectLink(Link.REL_ALTERNATE);
+  }
+
+  public IRI getLogoElement() {
+    return getFirstChild(LOGO);
+  }
+
+  public URI getLogo() throws URISyntaxException {
+    IRI iri = getLogoElement();
+    return (iri != null) ? iri.getValue() : null;
+  }
+
+  public Text getRightsElement() {
+    return getFirstChild(RIGHTS);
+  }
+
+  public String getRights() {
+    return getTextValue(RIGHTS);
+  }
+
+  public Text.Type getRightsType() {
+    return getTextType(RIGHTS);
+  }
+
+  public Text getSubtitleElement() {
+    return getFirstChild(SUBTITLE);
+  }
+
+  public String getSubtitle() {
+    return getTextValue(SUBTITLE);
+  }
+
+  public Text.Type getSubtitleType() {
+    return getTextType(SUBTITLE);
+  }
+
+  public Text getTitleElement() {
+    return getFirstChild(TITLE);
+  }
+
+  public String getTitle() {
+    return getTextValue(TITLE);
+  }
+
+  public Text.Type getTitleType() {
+    return getTextType(TITLE);
+  }
+
+  public DateTime getUpdatedElement() {
+    return getFirstChild(UPDATED);
+  }
+
+  public String getUpdatedString() {
+    DateTime dte = getUpdatedElement();
+    return (dte != null) ? dte.getString() : null;
+  }
+
+  public Date getUpdated() {
+    DateTime dte = getUpdatedElement();
+    return (dte != null) ? dte.getDate() : null;
+  }
+
+  public void addAuthor(Person person) {
+    throw readOnly();
+  }
+
+  public Person addAuthor(String name) {
+    throw readOnly();
+  }
+
+  public Person addAuthor(String name, String email, String uri) {
+    throw readOnly();
+  }
+
+  public void addCategory(Category category) {
+    throw readOnly();
+  }
+
+  public Category addCategory(String term) {
+    throw readOnly();
+  }
+
+  public Category addCategory(String scheme, String term, String label) {
+    throw readOnly();
+  }
+
+  public void addContributor(Person person) {
+    throw readOnly();
+  }
+
+  public Person addContributor(String name) {
+    throw readOnly();
+  }
+
+  public Person addContributor(String name, String email, String uri) {
+    throw readOnly();
+  }
+
+  public void setGenerator(Generator generator) {
+    throw readOnly();
+  }
+
+  public Generator setGenerator(String uri, String version, String value) {
+    throw readOnly();
+  }
+
+  public void setIconElement(IRI iri) {
+    throw readOnly();
+  }
+
+  public IRI setIcon(String value) {
+    throw readOnly();
+  }
+
+  public void setIdElement(IRI id) {
+    throw readOnly();
+  }
+
+  public IRI setId(String value) {
+    throw readOnly();
+  }
+
+  public IRI setId(String value, boolean normalize) {
+    throw readOnly();
+  }
+
+  public void addLink(Link link) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href, String rel) {
+    throw readOnly();
+  }
+
+  public Link addLink(String href, String rel, String type, String title, String hreflang, long length) {
+    throw readOnly();
+  }
+
+  public void setLogoElement(IRI iri) {
+    throw readOnly();
+  }
+
+  public IRI setLogo(String value) {
+    throw readOnly();
+  }
+
+  public void setRightsElement(Text text) {
+    throw readOnly();
+  }
+
+  public Text setRights(String value) {
+    throw readOnly();
+  }
+
+  public Text setRightsAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setRightsAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setRights(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setRights(Div value) {
+    throw readOnly();
+  }
+
+  public void setSubtitleElement(Text text) {
+    throw readOnly();
+  }
+
+  public Text setSubtitle(String value) {
+    throw readOnly();
+  }
+
+  public Text setSubtitleAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setSubtitleAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setSubtitle(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setSubtitle(Div value) {
+    throw readOnly();
+  }
+
+  public void setTitleElement(Text text) {
+    throw readOnly();
+  }
+
+  public Text setTitle(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitleAsHtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitleAsXhtml(String value) {
+    throw readOnly();
+  }
+
+  public Text setTitle(String value, Text.Type type) {
+    throw readOnly();
+  }
+
+  public Text setTitle(Div value) {
+    throw readOnly();
+  }
+
+  public void setUpdatedElement(DateTime updated) {
+    throw readOnly();
+  }
+
+  public DateTime setUpdated(Date value) {
+    throw readOnly();
+  }
+
+  public DateTime setUpdated(String value) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Div;
+import org.apache.abdera.model.Text;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotText 
+  extends SnapshotElement 
+  implements Text {
+
+  private static final long serialVersionUID = 3806934741386413658L;
+
+  private final Type type;
+  
+  SnapshotText(Base parent, int index, OMElement source, Type type) {
+    super(parent, index, source);
+    this.type = type;
+  }
+
+  public Type getTextType() {
+    return type;
+  }
+
+  public Div getValueElement() {
+    return getFirstChild(DIV);
+  }
+
+  public String getValue() {
+    if (Type.XHTML.equals(type)) {
+      Div div = getValueElement();
+      return (div != null) ? div.getValue() : null;
+    }
+    return (type != null) ? getText() : null;
+  }
+
+  public String getWrappedValue() {
+    if (Type.XHTML.equals(type)) {
+      Div div = getValueElement();
+      return (div != null) ? div.toString() : null;
+    }
+    return getValue();
+  }
+
+  @Override
+  public URI getBaseUri() throws URISyntaxException {
+    if (Type.XHTML.equals(type)) {
+      Div div = getValueElement();
+      String base = (div != null) ? div.getAttributeValue(BASE) : null;
+      if (base != null) {
+        return (getAttributeValue(BASE) != null) ?
+          super.getBaseUri().resolve(base) : _getUriValue(base);
+      }
+    }
+    return super.getBaseUri();
+  }
+
+  @Override
+  public URI getResolvedBaseUri() throws URISyntaxException {
+    if (Type.XHTML.equals(type)) {
+      Div div = getValueElement();
+      String base = (div != null) ? div.getAttributeValue(BASE) : null;
+      if (base != null) return super.getResolvedBaseUri().resolve(base);
+    }
+    return super.getResolvedBaseUri();
+  }
+
+  @Override
+  public String getLanguage() {
+    if (Type.XHTML.equals(type)) {
+      Div div = getValueElement();
+      String lang = (div != null) ? div.getAttributeValue(LANG) : null;
+      if (lang != null) return lang;
+    }
+    return super.getLanguage();
+  }
+
+  public void setTextType(Type type) {
+    throw readOnly();
+  }
+
+  public void setValueElement(Div value) {
+    throw readOnly();
+  }
+
+  public void setValue(String value) {
+    throw readOnly();
+  }
+
+  public void setWrappedValue(String wrappedValue) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.util.List;
+
+import org.apache.abdera.model.Base;
+import org.apache.abdera.model.Collection;
+import org.apache.abdera.model.Workspace;
+import org.apache.axiom.om.OMElement;
+
+class SnapshotWorkspace 
+  extends SnapshotExtensibleElement 
+  implements Workspace {
+
+  private static final long serialVersionUID = -7061429472316530725L;
+
+  SnapshotWorkspace(Base parent, int index, OMElement source) {
+    super(parent, index, source);
+  }
+
+  public String getTitle() {
+    return getAttributeValue(ATITLE);
+  }
+
+  public List<Collection> getCollections() {
+    return getChildren(COLLECTION);
+  }
+
+  public Collection getCollection(String title) {
+    for (Collection c : getCollections()) {
+      if (c.getTitle().equals(title)) return c;
+    }
+    return null;
+  }
+
+  public void setTitle(String title) {
+    throw readOnly();
+  }
+
+  public void addCollection(Collection collection) {
+    throw readOnly();
+  }
+
+  public Collection addCollection(String title, String href) {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.snapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Serializes snapshot elements.  Namespace declarations recorded in the 
+ * snapshot are written where they appeared in the source unless the same
+ * binding is already in scope.  Any binding an element or attribute needs
+ * that is not in scope at that point (e.g. when a nested element is 
+ * written on its own) is declared on the element that uses it. 
+ */
+final class SnapshotWriter {
+
+  private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+  
+  private SnapshotWriter() {}
+  
+  static void write(SnapshotElement element, Writer writer) throws IOException {
+    writeElement(element, writer, null);
+  }
+  
+  /**
+   * Writes the children of the element without the element's own tags
+   */
+  static void writeChildren(SnapshotElement element, Writer writer) throws IOException {
+    writeChildren(element, writer, null);
+  }
+  
+  private static void writeChildren(
+    SnapshotElement element, 
+    Writer writer, 
+    Scope scope) 
+      throws IOException {
+    for (Object node : element.children()) {
+      if (node instanceof String) 
+        writeEscaped((String)node, writer, false);
+      else 
+        writeElement((SnapshotElement)node, writer, scope);
+    }
+  }
+  
+  private static void writeElement(
+    SnapshotElement element, 
+    Writer writer, 
+    Scope scope) 
+      throws IOException {
+    Scope outer = scope;
+    StringBuffer declarations = new StringBuffer();
+    String[] namespaces = element.namespaces();
+    if (namespaces != null) {
+      for (int n = 0; n < namespaces.length; n += 2) {
+        if (!namespaces[n + 1].equals(lookup(namespaces[n], scope)))
+          scope = declare(namespaces[n], namespaces[n + 1], scope, declarations);
+      }
+    }
+    QName qname = element.getQName();
+    String prefix = qname.getPrefix();
+    if (!qname.getNamespaceURI().equals(lookup(prefix, scope)))
+      scope = declare(prefix, qname.getNamespaceURI(), scope, declarations);
+    StringBuffer attrs = null;
+    Object[] attributes = element.attributes();
+    if (attributes != null) {
+      attrs = new StringBuffer();
+      for (int n = 0; n < attributes.length; n += 2) {
+        QName name = (QName) attributes[n];
+        String uri = name.getNamespaceURI();
+        String p = name.getPrefix();
+        if (uri.length() > 0 && !uri.equals(lookup(p, scope))) {
+          if (p.length() == 0 || isDeclared(p, scope, outer)) {
+            int i = 0;
+            do { p = "ns" + i++; } while (lookup(p, scope) != null);
+          }
+          scope = declare(p, uri, scope, declarations);
+        }
+        attrs.append(' ');
+        if (uri.length() > 0) attrs.append(p).append(':');
+        attrs.append(name.getLocalPart()).append("=\"");
+        appendEscaped((String) attributes[n + 1], attrs, true);
+        attrs.append('"');
+      }
+    }
+    writer.write('<');
+    writeName(qname, writer);
+    writer.write(declarations.toString());
+    if (attrs != null) writer.write(attrs.toString());
+    if (element.children().length == 0) {
+      writer.write("/>");
+    } else {
+      writer.write('>');
+      writeChildren(element, writer, scope);
+      writer.write("</");
+      writeName(qname, writer);
+      writer.write('>');
+    }
+  }
+  
+  private static void writeName(QName qname, Writer writer) throws IOException {
+    if (qname.getPrefix().length() > 0) {
+      writer.write(qname.getPrefix());
+      writer.write(':');
+    }
+    writer.write(qname.getLocalPart());
+  }
+  
+  private static Scope declare(
+    String prefix, 
+    String uri, 
+    Scope scope, 
+    StringBuffer declarations) {
+      if ("xml".equals(prefix)) return scope;
+      declarations.append(" xmlns");
+      if (prefix.length() > 0) declarations.append(':').append(prefix);
+      declarations.append("=\"");
+      appendEscaped(uri, declarations, true);
+      declarations.append('"');
+      return new Scope(prefix, uri, scope);
+  }
+  
+  private static String lookup(String prefix, Scope scope) {
+    if ("xml".equals(prefix)) return XML_NS;
+    for (; scope != null; scope = scope.next) 
+      if (scope.prefix.equals(prefix)) return scope.uri;
+    return (prefix.length() == 0) ? "" : null;
+  }
+  
+  /**
+   * True if the prefix has already been bound on the element being written
+   */
+  private static boolean isDeclared(String prefix, Scope scope, Scope outer) {
+    if ("xml".equals(prefix)) return true;
+    for (; scope != outer; scope = scope.next) 
+      if (scope.prefix.equals(prefix)) return true;
+    return false;
+  }
+  
+  private static void writeEscaped(String text, Writer writer, boolean attr) throws IOException {
+    int start = 0;
+    for (int n = 0; n < text.length(); n++) {
+      String rep = escape(text.charAt(n), attr);
+      if (rep != null) {
+        writer.write(text, start, n - start);
+        writer.write(rep);
+        start = n + 1;
+      }
+    }
+    writer.write(text, start, text.length() - start);
+  }
+  
+  private static void appendEscaped(String text, StringBuffer buf, boolean attr) {
+    for (int n = 0; n < text.length(); n++) {
+      char c = text.charAt(n);
+      String rep = escape(c, attr);
+      if (rep != null) buf.append(rep);
+      else buf.append(c);
+    }
+  }
+  
+  private static String escape(char c, boolean attr) {
+    switch(c) {
+      case '&': return "&amp;";
+      case '<': return "&lt;";
+      case '>': return attr ? null : "&gt;";
+      case '"': return attr ? "&quot;" : null;
+      case '\t': return attr ? "&#9;" : null;
+      case '\n': return attr ? "&#10;" : null;
+      case '\r': return "&#13;";
+      default: return null;
+    }
+  }
+  
+  private static final class Scope {
+    final String prefix;
+    final String uri;
+    final Scope next;
+    Scope(String prefix, String uri, Scope next) {
+      this.prefix = prefix;
+      this.uri = uri;
+      this.next = next;
+    }
+  }
+  
+}
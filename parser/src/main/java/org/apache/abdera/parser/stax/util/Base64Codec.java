@@ -0,0 +1,146 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Incremental Base64 encoding and decoding.  Unlike a whole-value codec,
+ * the decoder accepts the encoded text in arbitrary pieces (as it arrives 
+ * from successive text events, for instance) and writes the decoded bytes 
+ * through a small buffer, so the complete value never has to be held in 
+ * memory as either text or bytes.
+ */
+public final class Base64Codec {
+
+  private static final char[] ALPHABET = 
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+  
+  private static final byte[] VALUES = new byte[128];
+  static {
+    java.util.Arrays.fill(VALUES, (byte)-1);
+    for (int n = 0; n < ALPHABET.length; n++) 
+      VALUES[ALPHABET[n]] = (byte)n;
+  }
+  
+  private final OutputStream out;
+  private final byte[] buf = new byte[3 * 1024];
+  private int pos = 0;
+  private int bits = 0;
+  private int count = 0;
+  private int padding = 0;
+  
+  /**
+   * Creates a decoder that writes the decoded bytes to the given stream
+   */
+  public Base64Codec(OutputStream out) {
+    this.out = out;
+  }
+  
+  /**
+   * Decodes the next piece of the encoded text.  Whitespace is ignored.
+   */
+  public void decode(CharSequence text) throws IOException {
+    for (int n = 0, l = text.length(); n < l; n++)
+      decode(text.charAt(n));
+  }
+  
+  /**
+   * Decodes the next piece of the encoded text.  Whitespace is ignored.
+   */
+  public void decode(char[] text, int off, int len) throws IOException {
+    for (int n = off; n < off + len; n++)
+      decode(text[n]);
+  }
+  
+  private void decode(char c) throws IOException {
+    if (c == ' ' || c == '\n' || c == '\r' || c == '\t') return;
+    if (c == '=') {
+      if (count < 2 || ++padding + count > 4) 
+        throw new IOException("Invalid Base64 padding");
+      return;
+    }
+    int value = (c < 128) ? VALUES[c] : -1;
+    if (value < 0 || padding > 0) 
+      throw new IOException("Invalid Base64 character: " + c);
+    bits = (bits << 6) | value;
+    if (++count == 4) {
+      if (pos + 3 > buf.length) flush();
+      buf[pos++] = (byte)(bits >> 16);
+      buf[pos++] = (byte)(bits >> 8);
+      buf[pos++] = (byte)bits;
+      bits = 0;
+      count = 0;
+    }
+  }
+  
+  /**
+   * Writes out the final bytes and flushes the stream.  Fails if the 
+   * encoded text was truncated
+   */
+  public void finish() throws IOException {
+    if (count == 1) 
+      throw new IOException("Truncated Base64 value");
+    if (count > 0 && (padding == 0 || padding + count == 4)) {
+      if (pos + 2 > buf.length) flush();
+      if (count == 2) {
+        buf[pos++] = (byte)(bits >> 4);
+      } else {
+        buf[pos++] = (byte)(bits >> 10);
+        buf[pos++] = (byte)(bits >> 2);
+      }
+    } else if (count > 0) {
+      throw new IOException("Invalid Base64 padding");
+    }
+    bits = count = padding = 0;
+    flush();
+    out.flush();
+  }
+  
+  private void flush() throws IOException {
+    if (pos > 0) out.write(buf, 0, pos);
+    pos = 0;
+  }
+  
+  /**
+   * Encodes len bytes of the source (a multiple of three unless this is 
+   * the final piece of the value) into dst, returning the number of 
+   * characters written.  dst must have room for ((len + 2) / 3) * 4 chars
+   */
+  public static int encode(byte[] src, int off, int len, char[] dst, int dstOff) {
+    int d = dstOff, end = off + len;
+    int n = off;
+    for (; n + 3 <= end; n += 3) {
+      int bits = ((src[n] & 0xFF) << 16) | ((src[n+1] & 0xFF) << 8) | (src[n+2] & 0xFF);
+      dst[d++] = ALPHABET[(bits >> 18) & 0x3F];
+      dst[d++] = ALPHABET[(bits >> 12) & 0x3F];
+      dst[d++] = ALPHABET[(bits >> 6) & 0x3F];
+      dst[d++] = ALPHABET[bits & 0x3F];
+    }
+    if (n < end) {
+      int bits = (src[n] & 0xFF) << 16;
+      if (n + 1 < end) bits |= (src[n+1] & 0xFF) << 8;
+      dst[d++] = ALPHABET[(bits >> 18) & 0x3F];
+      dst[d++] = ALPHABET[(bits >> 12) & 0x3F];
+      dst[d++] = (n + 1 < end) ? ALPHABET[(bits >> 6) & 0x3F] : '=';
+      dst[d++] = '=';
+    }
+    return d - dstOff;
+  }
+}
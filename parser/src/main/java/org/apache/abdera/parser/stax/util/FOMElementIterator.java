@@ -109,6 +109,7 @@ public class FOMElementIterator extends OMChildrenIterator {
   protected boolean isMatch(Element el) {
     if (attribute != null) {
       String val = el.getAttributeValue(attribute);
+      if (val == value) return true;
       return ((val == null && value == null) ||
              (val == null && value != null && value.equals(defaultValue)) ||
              (val != null && val.equals(value)));
@@ -0,0 +1,179 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip (RFC 1952) or zlib (RFC 1950) stream using pooled
+ * Inflater instances.  Inflaters hold native memory and are relatively 
+ * expensive to create, so each one is reset and handed back to the pool 
+ * as soon as the end of the compressed data has been reached or the 
+ * stream is closed, whichever comes first.
+ */
+public class FOMInflaterInputStream 
+  extends InflaterInputStream {
+
+  private static final int POOL_SIZE = 32;
+  
+  private static final Queue<Inflater> gzipPool = 
+    new ConcurrentLinkedQueue<Inflater>();
+  private static final Queue<Inflater> zlibPool = 
+    new ConcurrentLinkedQueue<Inflater>();
+  private static final AtomicInteger pooled = new AtomicInteger();
+  
+  private final boolean gzip;
+  private final CRC32 crc;
+  private boolean released = false;
+  
+  /**
+   * @param gzip true if the stream is in the gzip format, false if it is 
+   *  in the zlib format
+   */
+  public FOMInflaterInputStream(InputStream in, boolean gzip) 
+    throws IOException {
+      super(in, acquire(gzip), 8192);
+      this.gzip = gzip;
+      this.crc = gzip ? new CRC32() : null;
+      if (gzip) readHeader();
+  }
+  
+  /**
+   * Returns true if the bytes are the start of a gzip stream
+   */
+  public static boolean isGzip(int b0, int b1) {
+    return b0 == 0x1F && b1 == 0x8B;
+  }
+  
+  /**
+   * Returns true if the bytes are a valid zlib header using the deflate
+   * method.  No XML document (in any encoding) can begin this way
+   */
+  public static boolean isZlib(int b0, int b1) {
+    return b0 >= 0 && b1 >= 0 && 
+      (b0 & 0x0F) == 8 && (b0 >> 4) <= 7 && 
+      ((b0 << 8) | b1) % 31 == 0;
+  }
+  
+  private static Inflater acquire(boolean gzip) {
+    Inflater inflater = (gzip ? gzipPool : zlibPool).poll();
+    if (inflater != null) {
+      pooled.decrementAndGet();
+      return inflater;
+    }
+    return new Inflater(gzip);
+  }
+  
+  private void release() {
+    if (released) return;
+    released = true;
+    if (pooled.incrementAndGet() <= POOL_SIZE) {
+      inf.reset();
+      (gzip ? gzipPool : zlibPool).offer(inf);
+    } else {
+      pooled.decrementAndGet();
+      inf.end();
+    }
+  }
+  
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (released) return -1;
+    int n;
+    try {
+      n = super.read(b, off, len);
+    } catch (IOException e) {
+      release();
+      throw e;
+    }
+    if (n == -1) {
+      try {
+        if (gzip) readTrailer();
+      } finally {
+        release();
+      }
+    } else if (gzip) {
+      crc.update(b, off, n);
+    }
+    return n;
+  }
+  
+  @Override
+  public int available() throws IOException {
+    return released ? 0 : super.available();
+  }
+  
+  @Override
+  public void close() throws IOException {
+    release();
+    super.close();
+  }
+  
+  private void readHeader() throws IOException {
+    if (readByte() != 0x1F || readByte() != 0x8B) 
+      throw new ZipException("Not in gzip format");
+    if (readByte() != 8) 
+      throw new ZipException("Unsupported gzip compression method");
+    int flags = readByte();
+    for (int n = 0; n < 6; n++) readByte(); // mtime, xfl, os
+    if ((flags & 4) != 0) {                  // FEXTRA
+      int xlen = readByte() | (readByte() << 8);
+      for (int n = 0; n < xlen; n++) readByte();
+    }
+    if ((flags & 8) != 0) while (readByte() != 0);   // FNAME
+    if ((flags & 16) != 0) while (readByte() != 0);  // FCOMMENT
+    if ((flags & 2) != 0) {                          // FHCRC
+      readByte();
+      readByte();
+    }
+  }
+  
+  /**
+   * Checks the CRC and size recorded after the compressed data.  Part of 
+   * the trailer may still be in the input buffer
+   */
+  private void readTrailer() throws IOException {
+    int remaining = inf.getRemaining();
+    int p = len - remaining;
+    long[] values = new long[2];
+    for (int n = 0; n < 8; n++) {
+      int b = (remaining > 0) ? buf[p++] & 0xFF : readByte();
+      if (remaining > 0) remaining--;
+      values[n / 4] |= ((long) b) << ((n % 4) * 8);
+    }
+    if (values[0] != crc.getValue())
+      throw new ZipException("Corrupt gzip stream (CRC mismatch)");
+    if (values[1] != (inf.getBytesWritten() & 0xFFFFFFFFL))
+      throw new ZipException("Corrupt gzip stream (size mismatch)");
+  }
+  
+  private int readByte() throws IOException {
+    int b = in.read();
+    if (b == -1) throw new EOFException("Unexpected end of gzip stream");
+    return b;
+  }
+}
@@ -35,7 +35,9 @@ public class FOMLinkIterator extends FOMElementIterator {
 
   protected boolean isMatch(Element el) {
     if (attribute != null) {
-      String val = FOMLink.getRelEquiv(el.getAttributeValue(attribute));
+      String val = el.getAttributeValue(attribute);
+      if (val != null && val == value) return true;
+      val = FOMLink.getRelEquiv(val);
       return ((val == null && value == null) ||
              (val == null && value != null && value.equalsIgnoreCase(defaultValue)) ||
              (val != null && val.equalsIgnoreCase(value)));
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 
 /**
  * Implements an ElementSet around an internal buffered iterator.
@@ -41,13 +42,19 @@ import java.util.ListIterator;
  *   is used.
  *   
  *   The List itself is unmodifiable. 
+ *   
+ *   Only as much of the iterator is consumed as each call needs: 
+ *   isEmpty() pulls at most one element, contains() and indexOf() stop 
+ *   at the first match, and once the iterator is drained the buffer 
+ *   answers everything, including size(), without touching it again.
  */
 public class FOMList<T> 
   extends java.util.AbstractCollection<T>
-  implements List<T> {
+  implements List<T>, RandomAccess {
 
   private Iterator<T> i = null;
   private List<T> buffer = new ArrayList<T>();
+  private boolean complete = false;
   
   public FOMList(Iterator<T> i) {
     this.i = i;
@@ -58,8 +65,16 @@ public class FOMList<T>
     return java.util.Collections.unmodifiableList(buffer);
   }
   
+  /**
+   * Once the underlying iterator has been drained it is released and the
+   * buffer alone answers every call
+   */
   private boolean finished() {
-    return !i.hasNext();
+    if (!complete && !i.hasNext()) {
+      complete = true;
+      i = null;
+    }
+    return complete;
   }
   
   private int buffered() {
@@ -67,25 +82,32 @@ public class FOMList<T>
   }
   
   private int buffer(int n) {
-    if (i.hasNext()) { 
-      int read = 0;
-      while(i.hasNext() && (read++ < n || n == -1)) {
-        buffer.add(i.next());
-      }
+    int read = 0;
+    while(!finished() && (read++ < n || n == -1)) {
+      buffer.add(i.next());
     }
     return buffered();
   }
   
+  /**
+   * Buffers until at least the given number of items are available, 
+   * returning false if the list is shorter than that
+   */
+  private boolean fill(int count) {
+    int n = count - buffer.size();
+    if (n > 0) buffer(n);
+    return buffer.size() >= count;
+  }
+  
   @SuppressWarnings("unchecked")
   public T get(int index) {
-    int n = buffered();
-    if (index > n && (index > buffer(index - n)))
+    if (index < 0 || !fill(index + 1))
       throw new ArrayIndexOutOfBoundsException(index);
     return (T) buffer.get(index);
   }
 
   public int size() {
-    return buffer(-1) + 1;
+    return (complete) ? buffer.size() : buffer(-1) + 1;
   }
   
   public Iterator<T> iterator() {
@@ -117,8 +139,7 @@ public class FOMList<T>
   }
 
   public boolean contains(Object o) {
-    buffer(-1);
-    return buffer.contains(o);
+    return indexOf(o) > -1;
   }
 
   public boolean containsAll(Collection c) {
@@ -128,13 +149,19 @@ public class FOMList<T>
   }
 
   public int indexOf(Object o) {
-    buffer(-1);
-    return buffer.indexOf(o);
+    int index = buffer.indexOf(o);
+    if (index > -1) return index;
+    while (!finished()) {
+      T item = i.next();
+      buffer.add(item);
+      if (o == null ? item == null : o.equals(item)) 
+        return buffer.size() - 1;
+    }
+    return -1;
   }
 
   public boolean isEmpty() {
-    buffer(-1);
-    return buffer.isEmpty();
+    return !fill(1);
   }
 
   public int lastIndexOf(Object o) {
@@ -202,8 +229,7 @@ public class FOMList<T>
       }
       
       public boolean hasNext() {
-        return (!set.finished()) || 
-          (set.finished() && counter < buffer.size());
+        return counter < buffer.size() || set.fill(counter + 1);
       }
     
       @SuppressWarnings("unchecked")
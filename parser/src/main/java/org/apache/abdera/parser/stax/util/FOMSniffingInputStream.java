@@ -20,22 +20,40 @@ package org.apache.abdera.parser.stax.util;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Will attempt to autodetect the character encoding from the stream
- * This will preserve the BOM if it exists
+ * This will preserve the BOM if it exists.  The encoding is detected 
+ * from the byte order mark or, failing that, by scanning the XML 
+ * declaration.  If the underlying stream supports mark/reset, or is 
+ * a ByteBufferInputStream, the stream is sniffed in place; otherwise 
+ * the first few bytes are buffered and replayed.
  */
 public class FOMSniffingInputStream 
   extends FilterInputStream {
 
+  private static final int HEAD = 200;
+  
+  private static final String[] BOM_ENCODINGS = {
+    null, "utf-32be", "utf-32le", null, "utf-16be", "utf-16le", "utf-8"};
+  
+  private static final ThreadLocal<byte[]> scratch = 
+    new ThreadLocal<byte[]>() {
+      protected byte[] initialValue() {
+        return new byte[HEAD];
+      }
+    };
+  
   private String encoding = null;
   private boolean bomset = false;
+  private byte[] head = null;
+  private int headpos = 0;
+  private int headlen = 0;
   
   public FOMSniffingInputStream(InputStream in) {
-    super(new PeekAheadInputStream(in,4));
+    super(in);
     try {
       encoding = detectEncoding();
     } catch (IOException e) {
@@ -43,6 +61,10 @@ public class FOMSniffingInputStream
     }
   }
 
+  public FOMSniffingInputStream(ByteBuffer buffer) {
+    this(new ByteBufferInputStream(buffer));
+  }
+  
   public boolean isBomSet() {
     return bomset;
   }
@@ -52,51 +74,227 @@ public class FOMSniffingInputStream
   }
   
   private String detectEncoding() throws IOException {
-    PeekAheadInputStream pin = (PeekAheadInputStream) this.in;
-    byte[] bom = new byte[4];
-    pin.peek(bom);
+    if (in instanceof ByteBufferInputStream) {
+      ByteBuffer buf = ((ByteBufferInputStream)in).getByteBuffer();
+      bomset = hasBom(buf);
+      return detectEncoding(buf);
+    }
+    byte[] buf = null;
+    int len = 0;
+    if (in.markSupported()) {
+      buf = scratch.get();
+      in.mark(HEAD);
+      len = fill(buf);
+      in.reset();
+    } else {
+      buf = head = new byte[HEAD];
+      len = headlen = fill(buf);
+    }
+    ByteBuffer bb = ByteBuffer.wrap(buf, 0, len);
+    bomset = hasBom(bb);
+    return detectEncoding(bb);
+  }
+
+  private int fill(byte[] buf) throws IOException {
+    int len = 0;
+    while (len < buf.length) {
+      int r = in.read(buf, len, buf.length - len);
+      if (r == -1) break;
+      len += r;
+    }
+    return len;
+  }
+  
+  @Override
+  public int read() throws IOException {
+    if (headpos < headlen) return head[headpos++] & 0xFF;
+    return in.read();
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (headpos < headlen) {
+      int n = Math.min(len, headlen - headpos);
+      System.arraycopy(head, headpos, b, off, n);
+      headpos += n;
+      return n;
+    }
+    return in.read(b, off, len);
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (headpos < headlen) {
+      int s = (int) Math.min(Math.max(n, 0), headlen - headpos);
+      headpos += s;
+      return s;
+    }
+    return in.skip(n);
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (headlen - headpos) + in.available();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return head == null && in.markSupported();
+  }
+
+  /**
+   * Checks the first two bytes of the stream for the gzip or zlib magic 
+   * numbers and, if either is found, returns a stream that decompresses 
+   * the input on the fly.  Otherwise returns a stream that reads the 
+   * input unchanged.  Streams that support mark/reset are checked in 
+   * place; any other stream is wrapped so that the bytes can be pushed 
+   * back.
+   */
+  public static InputStream decompress(InputStream in) throws IOException {
+    int b0, b1;
+    if (in.markSupported()) {
+      in.mark(2);
+      b0 = in.read();
+      b1 = (b0 != -1) ? in.read() : -1;
+      in.reset();
+    } else {
+      PushbackInputStream pin = new PushbackInputStream(in, 2);
+      b0 = pin.read();
+      b1 = (b0 != -1) ? pin.read() : -1;
+      if (b1 != -1) pin.unread(b1);
+      if (b0 != -1) pin.unread(b0);
+      in = pin;
+    }
+    if (FOMInflaterInputStream.isGzip(b0, b1)) 
+      return new FOMInflaterInputStream(in, true);
+    if (FOMInflaterInputStream.isZlib(b0, b1)) 
+      return new FOMInflaterInputStream(in, false);
+    return in;
+  }
+  
+  /**
+   * Returns true if the buffer begins with a byte order mark.  The 
+   * position of the buffer is not modified.
+   */
+  public static boolean hasBom(ByteBuffer buf) {
+    return sniffBom(buf) != 0;
+  }
+  
+  /**
+   * Detects the character encoding of the XML document contained in the 
+   * buffer, starting at the current position.  The position of the buffer 
+   * is not modified and the buffer contents are not copied.  Returns null
+   * if the encoding cannot be determined.
+   */
+  public static String detectEncoding(ByteBuffer buf) {
+    int bom = sniffBom(buf);
+    if (bom != 0) return BOM_ENCODINGS[bom];
+    int p = buf.position();
+    int n = Math.min(buf.remaining(), HEAD);
+    int b0 = get(buf,p,n,0), b1 = get(buf,p,n,1), 
+        b2 = get(buf,p,n,2), b3 = get(buf,p,n,3);
     String charset = null;
-    if (bom[0] == 0x00 && bom[1] == 0x00 && bom[2] == 0xFFFFFFFE && bom[3] == 0xFFFFFFFF) {
-      bomset = true;
-      return "utf-32be";
-    } else if (bom[0] == 0xFFFFFFFF && bom[1] == 0xFFFFFFFE && bom[2] == 0x00 && bom[3] == 0x00) {
-      bomset = true;
-      return "utf-32le";
-    } else if ((bom[0] == 0xFFFFFFFE && bom[1] == 0xFFFFFFFF && bom[2] == 0x00 && bom[3] == 0x00) ||
-               (bom[0] == 0x00 && bom[1] == 0x00 && bom[2] == 0xFFFFFFFF && bom[3] == 0xFFFFFFFE)) {
-      bomset = true;
+    int width = 1, off = 0;
+    if (b0 == 0x00 && b1 == 0x00 && b2 == 0x00 && b3 == 0x3C) {
+      charset = "utf-32be"; width = 4; off = 3;
+    } else if (b0 == 0x3C && b1 == 0x00 && b2 == 0x00 && b3 == 0x00) {
+      charset = "utf-32le"; width = 4;
+    } else if (b0 == 0x00 && b1 == 0x3C && b2 == 0x00 && b3 == 0x3F) {
+      charset = "utf-16be"; width = 2; off = 1;
+    } else if (b0 == 0x3C && b1 == 0x00 && b2 == 0x3F && b3 == 0x00) {
+      charset = "utf-16le"; width = 2;
+    } else if (b0 == 0x4C && b1 == 0x6F && b2 == 0xA7 && b3 == 0x94) {
+      // EBCDIC; leave it to the XML parser to work out which code page
+      return null;
+    }
+    String cs = scanDeclaration(buf, p, n, width, off);
+    return cs != null ? cs : charset;
+  }
+  
+  private static int sniffBom(ByteBuffer buf) {
+    int p = buf.position();
+    int n = buf.remaining();
+    int b0 = get(buf,p,n,0), b1 = get(buf,p,n,1), 
+        b2 = get(buf,p,n,2), b3 = get(buf,p,n,3);
+    if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+      return 1;
+    } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+      return 2;
+    } else if ((b0 == 0xFE && b1 == 0xFF && b2 == 0x00 && b3 == 0x00) ||
+               (b0 == 0x00 && b1 == 0x00 && b2 == 0xFF && b3 == 0xFE)) {
+      return 3;
+    } else if (b0 == 0xFE && b1 == 0xFF) {
+      return 4;
+    } else if (b0 == 0xFF && b1 == 0xFE) {
+      return 5;
+    } else if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF)  {
+      return 6;
+    }
+    return 0;
+  }
+  
+  private static int get(ByteBuffer buf, int p, int n, int i) {
+    return (i < n) ? buf.get(p + i) & 0xFF : -1;
+  }
+
+  private static final char[] XMLDECL = {'<','?','x','m','l'};
+  private static final char[] ENCODING = {'e','n','c','o','d','i','n','g'};
+  
+  /**
+   * Scans the XML declaration for the encoding pseudo-attribute. Characters
+   * are read as code units of the given width, using the byte at the given
+   * offset within each unit.  Only ASCII is significant in the declaration.
+   */
+  private static String scanDeclaration(
+    ByteBuffer buf, int p, int n, int width, int off) {
+      int units = n / width;
+      if (units < XMLDECL.length + 1) return null;
+      for (int i = 0; i < XMLDECL.length; i++)
+        if (unit(buf,p,width,off,i) != XMLDECL[i]) return null;
+      if (!isSpace(unit(buf,p,width,off,XMLDECL.length))) return null;
+      for (int i = XMLDECL.length + 1; i < units; i++) {
+        int c = unit(buf,p,width,off,i);
+        if (c == '?' || c == '>') return null;
+        if (c == 'e' && isSpace(unit(buf,p,width,off,i-1)) && 
+            matches(buf,p,width,off,i,units,ENCODING)) {
+          int j = skipSpace(buf,p,width,off,i + ENCODING.length,units);
+          if (j >= units || unit(buf,p,width,off,j) != '=') return null;
+          j = skipSpace(buf,p,width,off,j + 1,units);
+          if (j >= units) return null;
+          int q = unit(buf,p,width,off,j);
+          if (q != '"' && q != '\'') return null;
+          int s = ++j;
+          while (j < units && unit(buf,p,width,off,j) != q) j++;
+          if (j >= units || j == s) return null;
+          char[] name = new char[j - s];
+          for (int k = 0; k < name.length; k++)
+            name[k] = (char) unit(buf,p,width,off,s + k);
+          return new String(name);
+        }
+      }
       return null;
-    } else if (bom[0] == 0xFFFFFFFE && bom[1] == 0xFFFFFFFF) {
-      bomset = true;
-      return "utf-16be";
-    } else if (bom[0] == 0xFFFFFFFF && bom[1] == 0xFFFFFFFE) {
-      bomset = true;
-      return "utf-16le";
-    } else if (bom[0] == 0xFFFFFFEF && bom[1] == 0xFFFFFFBB && bom[2] == 0xFFFFFFBF)  {
-      bomset = true;
-      return "utf-8";
-    } else if (bom[0] == 0x00 && bom[1] == 0x00 && bom[2] == 0x00 && bom[3] == 0x3C) {
-      charset = "utf-32be";
-    } else if (bom[0] == 0x3C && bom[1] == 0x00 && bom[2] == 0x00 && bom[3] == 0x00) {
-      charset = "utf-32le";
-    } else if (bom[0] == 0x00 && bom[1] == 0x3C && bom[2] == 0x00 && bom[3] == 0x3F) {
-      charset = "utf-16be";
-    } else if (bom[0] == 0x3C && bom[1] == 0x00 && bom[2] == 0x3F && bom[3] == 0x00) {
-      charset = "utf-16le";
-    } else if (bom[0] == 0x4C && bom[1] == 0x6F && bom[2] == 0xA7 && bom[3] == 0x94) {
-      charset = "edbdic";
-    } 
-    bomset = false;
-    try { 
-      byte[] p = new byte[200];
-      pin.peek(p);
-      XMLStreamReader xmlreader = 
-        XMLInputFactory.newInstance().createXMLStreamReader(
-          new java.io.ByteArrayInputStream(p));
-      String cs = xmlreader.getCharacterEncodingScheme();
-      if (cs != null) charset = cs;
-    } catch (Exception e) {}
-    return charset;
+  }
+  
+  private static int unit(ByteBuffer buf, int p, int width, int off, int i) {
+    return buf.get(p + i * width + off) & 0xFF;
+  }
+  
+  private static boolean matches(
+    ByteBuffer buf, int p, int width, int off, int i, int units, char[] s) {
+      if (i + s.length > units) return false;
+      for (int k = 0; k < s.length; k++)
+        if (unit(buf,p,width,off,i + k) != s[k]) return false;
+      return true;
+  }
+  
+  private static int skipSpace(
+    ByteBuffer buf, int p, int width, int off, int i, int units) {
+      while (i < units && isSpace(unit(buf,p,width,off,i))) i++;
+      return i;
+  }
+  
+  private static boolean isSpace(int c) {
+    return c == 0x20 || c == 0x09 || c == 0x0D || c == 0x0A;
   }
   
 }
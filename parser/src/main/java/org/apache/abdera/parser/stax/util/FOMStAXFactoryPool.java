@@ -0,0 +1,169 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+import org.apache.abdera.parser.stax.FOMException;
+import org.apache.abdera.util.ServiceUtil;
+
+/**
+ * Shared, pre-configured StAX factories.  Looking up and configuring a
+ * StAX factory is expensive (XMLInputFactory.newInstance() performs a
+ * service lookup every time it is called), so each distinct combination
+ * of implementation class and property values is created exactly once
+ * and reused for every document after that.  Factories are never
+ * reconfigured once they have been published by the pool, which is what
+ * allows a single instance to be used by multiple threads concurrently.
+ */
+public final class FOMStAXFactoryPool {
+
+  private static final Map<String,Object> NO_PROPERTIES =
+    Collections.emptyMap();
+
+  private static final ConcurrentMap<Key,XMLInputFactory> inputFactories =
+    new ConcurrentHashMap<Key,XMLInputFactory>();
+  private static final ConcurrentMap<Key,XMLOutputFactory> outputFactories =
+    new ConcurrentHashMap<Key,XMLOutputFactory>();
+
+  private static volatile XMLInputFactory defaultInputFactory = null;
+  private static volatile XMLOutputFactory defaultOutputFactory = null;
+
+  private FOMStAXFactoryPool() {}
+
+  /**
+   * Returns the shared XMLInputFactory for the default StAX implementation
+   */
+  public static XMLInputFactory getInputFactory() {
+    XMLInputFactory factory = defaultInputFactory;
+    if (factory == null) {
+      factory = getInputFactory(null, NO_PROPERTIES);
+      defaultInputFactory = factory;
+    }
+    return factory;
+  }
+
+  /**
+   * Returns the shared XMLOutputFactory for the default StAX implementation
+   */
+  public static XMLOutputFactory getOutputFactory() {
+    XMLOutputFactory factory = defaultOutputFactory;
+    if (factory == null) {
+      factory = getOutputFactory(null, NO_PROPERTIES);
+      defaultOutputFactory = factory;
+    }
+    return factory;
+  }
+
+  /**
+   * Returns the shared XMLInputFactory for the given implementation class
+   * (or the default implementation if null) configured with the given
+   * properties.
+   */
+  public static XMLInputFactory getInputFactory(
+    String impl,
+    Map<String,Object> properties) {
+      Key key = new Key(impl, properties);
+      XMLInputFactory factory = inputFactories.get(key);
+      if (factory == null) {
+        factory = (impl != null) ?
+          (XMLInputFactory) newInstance(impl, XMLInputFactory.class) :
+          XMLInputFactory.newInstance();
+        for (Map.Entry<String,Object> entry : key.properties.entrySet()) {
+          try {
+            factory.setProperty(entry.getKey(), entry.getValue());
+          } catch (IllegalArgumentException e) {
+            throw new FOMException(e);
+          }
+        }
+        XMLInputFactory existing = inputFactories.putIfAbsent(key, factory);
+        if (existing != null) factory = existing;
+      }
+      return factory;
+  }
+
+  /**
+   * Returns the shared XMLOutputFactory for the given implementation class
+   * (or the default implementation if null) configured with the given
+   * properties.
+   */
+  public static XMLOutputFactory getOutputFactory(
+    String impl,
+    Map<String,Object> properties) {
+      Key key = new Key(impl, properties);
+      XMLOutputFactory factory = outputFactories.get(key);
+      if (factory == null) {
+        factory = (impl != null) ?
+          (XMLOutputFactory) newInstance(impl, XMLOutputFactory.class) :
+          XMLOutputFactory.newInstance();
+        for (Map.Entry<String,Object> entry : key.properties.entrySet()) {
+          try {
+            factory.setProperty(entry.getKey(), entry.getValue());
+          } catch (IllegalArgumentException e) {
+            throw new FOMException(e);
+          }
+        }
+        XMLOutputFactory existing = outputFactories.putIfAbsent(key, factory);
+        if (existing != null) factory = existing;
+      }
+      return factory;
+  }
+
+  private static Object newInstance(String impl, Class<?> type) {
+    try {
+      Class<?> c = ServiceUtil.getClassLoader().loadClass(impl);
+      if (!type.isAssignableFrom(c))
+        throw new FOMException(impl + " is not an instance of " + type.getName());
+      return c.newInstance();
+    } catch (FOMException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new FOMException(e);
+    }
+  }
+
+  private static final class Key {
+    private final String impl;
+    private final Map<String,Object> properties;
+    private final int hash;
+    Key(String impl, Map<String,Object> properties) {
+      this.impl = impl;
+      this.properties = (properties == null || properties.isEmpty()) ?
+        NO_PROPERTIES : new HashMap<String,Object>(properties);
+      this.hash = (impl != null ? impl.hashCode() : 0) * 31 +
+        this.properties.hashCode();
+    }
+    public int hashCode() {
+      return hash;
+    }
+    public boolean equals(Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Key)) return false;
+      Key key = (Key) other;
+      return (impl == null ? key.impl == null : impl.equals(key.impl)) &&
+        properties.equals(key.properties);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.parser.stax.util;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * A Reader that keeps a copy of every character read through it so that 
+ * ranges of the input can be recovered later using the character offsets
+ * reported by the XML parser.  A leading byte order mark is dropped so 
+ * that offsets line up with what the parser sees.
+ */
+public class RetainingReader 
+  extends FilterReader {
+
+  private char[] buf = new char[4096];
+  private int len = 0;
+  private boolean start = true;
+  
+  public RetainingReader(Reader in) {
+    super(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    char[] c = new char[1];
+    return (read(c, 0, 1) == -1) ? -1 : c[0];
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int n) throws IOException {
+    int r = in.read(cbuf, off, n);
+    if (start && r > 0) {
+      start = false;
+      if (cbuf[off] == '\uFEFF') {
+        System.arraycopy(cbuf, off + 1, cbuf, off, --r);
+        if (r == 0) return read(cbuf, off, n);
+      }
+    }
+    if (r > 0) retain(cbuf, off, r);
+    return r;
+  }
+  
+  @Override
+  public long skip(long n) throws IOException {
+    char[] c = new char[(int)Math.min(n, 1024)];
+    long s = 0;
+    while (s < n) {
+      int r = read(c, 0, (int)Math.min(n - s, c.length));
+      if (r == -1) break;
+      s += r;
+    }
+    return s;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+  
+  private void retain(char[] cbuf, int off, int n) {
+    if (len + n > buf.length) {
+      char[] b = new char[Math.max(buf.length * 2, len + n)];
+      System.arraycopy(buf, 0, b, 0, len);
+      buf = b;
+    }
+    System.arraycopy(cbuf, off, buf, len, n);
+    len += n;
+  }
+
+  /**
+   * The number of characters retained so far
+   */
+  public int length() {
+    return len;
+  }
+  
+  public String substring(int start, int end) {
+    return new String(buf, start, end - start);
+  }
+  
+  public void write(Writer out, int start, int end) throws IOException {
+    out.write(buf, start, end - start);
+  }
+
+  /**
+   * Returns the offset just past the tag that begins at the given offset, 
+   * or -1 if the tag has not been read yet.  Quoted attribute values are 
+   * skipped
+   */
+  public int endOfTag(int offset) {
+    char quote = 0;
+    for (int n = offset + 1; n < len; n++) {
+      char c = buf[n];
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '>') {
+        return n + 1;
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * Returns the offset of the end tag that closes the element whose 
+   * content begins at the given offset, or -1 if it has not been read yet.
+   * Comments, CDATA sections and processing instructions are skipped
+   */
+  public int findEndTag(int offset) {
+    int depth = 0;
+    int n = indexOf("<", offset);
+    while (n >= 0) {
+      int next;
+      if (startsWith("<!--", n)) {
+        next = indexOf("-->", n + 4);
+      } else if (startsWith("<![CDATA[", n)) {
+        next = indexOf("]]>", n + 9);
+      } else if (startsWith("<?", n)) {
+        next = indexOf("?>", n + 2);
+      } else if (startsWith("</", n)) {
+        if (depth-- == 0) return n;
+        next = endOfTag(n);
+      } else {
+        next = endOfTag(n);
+        if (next > 0 && buf[next - 2] != '/') depth++;
+      }
+      if (next < 0) return -1;
+      n = indexOf("<", next);
+    }
+    return -1;
+  }
+  
+  /**
+   * Returns true if the retained characters at the given offset start 
+   * with the given string
+   */
+  public boolean startsWith(String s, int offset) {
+    if (offset < 0 || offset + s.length() > len) return false;
+    for (int n = 0; n < s.length(); n++)
+      if (buf[offset + n] != s.charAt(n)) return false;
+    return true;
+  }
+  
+  /**
+   * Returns the offset of the first occurrence of the string at or after 
+   * the given offset, or -1
+   */
+  public int indexOf(String s, int offset) {
+    for (int n = Math.max(offset, 0); n + s.length() <= len; n++)
+      if (buf[n] == s.charAt(0) && startsWith(s, n)) return n;
+    return -1;
+  }
+  
+  /**
+   * Returns the offset of the last occurrence of the character before the
+   * given offset, or -1
+   */
+  public int lastIndexOf(char c, int offset) {
+    for (int n = Math.min(offset, len) - 1; n >= 0; n--)
+      if (buf[n] == c) return n;
+    return -1;
+  }
+
+  /**
+   * Returns the internal buffer. Only the first length() characters are 
+   * valid and the array must not be modified
+   */
+  public char[] getChars() {
+    return buf;
+  }
+  
+}
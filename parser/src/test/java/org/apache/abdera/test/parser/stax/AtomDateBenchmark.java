@@ -0,0 +1,106 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.text.FieldPosition;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.apache.abdera.model.AtomDate;
+
+/**
+ * Compares AtomDate.parse and AtomDate.format with the SimpleDateFormat 
+ * based implementation they replaced
+ */
+public class AtomDateBenchmark extends BaseBenchmark {
+
+  private static final int DATES = 1000;
+  
+  private static final String[] masks = {
+    "yyyy-MM-dd'T'HH:mm:ss.SSSz",
+    "yyyy-MM-dd't'HH:mm:ss.SSSz",
+    "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+  };
+  
+  public static void main(String... args) throws Exception {
+    final Date[] dates = new Date[DATES];
+    final String[] values = new String[DATES];
+    for (int n = 0; n < DATES; n++) {
+      dates[n] = new Date(1136073600000L + n * 3600000L + n);
+      values[n] = AtomDate.format(dates[n]);
+    }
+    
+    measure("SimpleDateFormat parse", DATES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (String value : values) last = parse(value);
+        return last;
+      }
+    });
+    
+    measure("AtomDate.parse", DATES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (String value : values) last = AtomDate.parse(value);
+        return last;
+      }
+    });
+    
+    measure("SimpleDateFormat format", DATES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (Date date : dates) last = format(date);
+        return last;
+      }
+    });
+    
+    measure("AtomDate.format", DATES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (Date date : dates) last = AtomDate.format(date);
+        return last;
+      }
+    });
+  }
+  
+  private static Date parse(String date) {
+    Date d = null;
+    SimpleDateFormat sdf = new SimpleDateFormat();
+    for (int n = 0; n < masks.length; n++) {
+      try {
+        sdf.applyPattern(masks[n]);
+        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+        sdf.setLenient(true);
+        d = sdf.parse(date, new ParsePosition(0));
+        if (d != null) break;
+      } catch (Exception e) {}
+    }
+    return d;
+  }
+  
+  private static String format(Date d) {
+    StringBuffer iso8601 = new StringBuffer();
+    SimpleDateFormat sdf = new SimpleDateFormat(masks[2]);
+    sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+    sdf.format(d, iso8601, new FieldPosition(0));
+    return iso8601.toString();
+  }
+  
+}
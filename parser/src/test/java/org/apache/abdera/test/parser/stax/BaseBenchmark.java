@@ -0,0 +1,98 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.abdera.factory.Factory;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+
+/**
+ * Minimal harness for the micro benchmarks in this package.  The benchmarks
+ * are plain main() programs rather than unit tests and are not run by the
+ * build.  Each operation is warmed up before it is measured and the result 
+ * is reported as the average time per operation.
+ */
+public abstract class BaseBenchmark {
+
+  protected static final int WARMUP = 10;
+  protected static final int ITERATIONS = 20;
+  
+  /**
+   * A single measured operation. Returns a value so the work can't be 
+   * optimized away
+   */
+  protected interface Operation {
+    Object run() throws Exception;
+  }
+  
+  private static Object sink = null;
+  
+  /**
+   * Runs the operation and prints the average cost of one unit of work, 
+   * where each run of the operation performs the given number of units
+   */
+  protected static double measure(
+    String name, 
+    int units, 
+    Operation op) 
+      throws Exception {
+    for (int n = 0; n < WARMUP; n++) sink = op.run();
+    long start = System.nanoTime();
+    for (int n = 0; n < ITERATIONS; n++) sink = op.run();
+    long elapsed = System.nanoTime() - start;
+    double result = (double)elapsed / ((double)ITERATIONS * units);
+    System.out.println(
+      String.format("%-40s %12.1f ns/op", name, result));
+    return result;
+  }
+  
+  protected static Object sink() {
+    return sink;
+  }
+  
+  /**
+   * Serializes a feed with the given number of entries, each carrying 
+   * the usual set of Atom metadata
+   */
+  protected static byte[] createFeed(int entries) throws Exception {
+    Feed feed = Factory.INSTANCE.newFeed();
+    feed.setId("urn:uuid:60a76c80-d399-11d9-b93C-0003939e0af6", false);
+    feed.setTitle("Example Feed");
+    feed.addLink("http://example.org/");
+    feed.setUpdated(new java.util.Date());
+    feed.addAuthor("John Doe");
+    for (int n = 0; n < entries; n++) {
+      Entry entry = feed.addEntry();
+      entry.setId("urn:entry:" + n, false);
+      entry.setTitle("Entry " + n);
+      entry.setUpdated(new java.util.Date(n * 1000L));
+      entry.addLink("http://example.org/entries/" + n);
+      entry.addLink("http://example.org/entries/" + n + "/edit", "edit");
+      entry.addCategory("http://example.org/scheme", "term" + (n % 10), null);
+      entry.addAuthor("Author " + (n % 5));
+      entry.setSummary("Summary of entry " + n);
+      entry.setContent("Content of entry " + n);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    feed.getDocument().writeTo(out);
+    return out.toByteArray();
+  }
+  
+}
@@ -0,0 +1,65 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.parser.Parser;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Measures repeated property access on a fully parsed entry whose Atom 
+ * metadata follows a large number of extension elements, the case in which
+ * a linear scan of the children is most expensive
+ */
+public class FOMChildIndexBenchmark extends BaseBenchmark {
+
+  private static final int EXTENSIONS = 100;
+  private static final int LOOKUPS = 10000;
+  
+  public static void main(String... args) throws Exception {
+    StringBuffer buf = new StringBuffer();
+    buf.append("<entry xmlns='http://www.w3.org/2005/Atom' xmlns:x='urn:x'>");
+    for (int n = 0; n < EXTENSIONS; n++) 
+      buf.append("<x:ext" + n + ">" + n + "</x:ext" + n + ">");
+    buf.append("<id>urn:entry</id><title>Entry</title>");
+    buf.append("<updated>2006-01-01T00:00:00Z</updated>");
+    buf.append("<content>Content</content></entry>");
+    Document<Entry> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(buf.toString().getBytes("UTF-8")));
+    final Entry entry = doc.getRoot();
+    ((OMElement)entry).build();
+    System.out.println(EXTENSIONS + " extensions");
+    
+    measure("property lookup (per lookup)", LOOKUPS * 4, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (int n = 0; n < LOOKUPS; n++) {
+          last = entry.getIdElement();
+          last = entry.getTitleElement();
+          last = entry.getUpdatedElement();
+          last = entry.getContentElement();
+        }
+        return last;
+      }
+    });
+  }
+  
+}
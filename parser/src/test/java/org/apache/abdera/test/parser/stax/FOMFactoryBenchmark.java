@@ -0,0 +1,69 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.parser.Parser;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Measures the per element cost of constructing FOM objects on an entry
+ * heavy feed, both while parsing (FOMFactory.createElement with a builder)
+ * and while cloning (FOMFactory.createElement without a builder)
+ */
+public class FOMFactoryBenchmark extends BaseBenchmark {
+
+  private static final int ENTRIES = 1000;
+  
+  public static void main(String... args) throws Exception {
+    final byte[] bytes = createFeed(ENTRIES);
+    Document<Feed> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(bytes));
+    final Feed feed = doc.getRoot();
+    final int elements = count((OMElement)feed);
+    System.out.println(ENTRIES + " entries, " + elements + " elements");
+    
+    measure("parse (per element)", elements, new Operation() {
+      public Object run() throws Exception {
+        Document<Feed> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(bytes));
+        ((OMElement)doc.getRoot()).build();
+        return doc;
+      }
+    });
+    
+    measure("clone (per element)", elements, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (Entry entry : feed.getEntries()) last = entry.clone();
+        return last;
+      }
+    });
+  }
+  
+  private static int count(OMElement element) {
+    int n = 1;
+    for (Iterator i = element.getChildElements(); i.hasNext();)
+      n += count((OMElement)i.next());
+    return n;
+  }
+  
+}
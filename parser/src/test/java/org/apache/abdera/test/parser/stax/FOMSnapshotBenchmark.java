@@ -0,0 +1,112 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.parser.Parser;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Compares the retained heap and read cost of fully built feeds against
+ * frozen snapshots of the same feeds, the way a feed cache would hold them
+ */
+public class FOMSnapshotBenchmark extends BaseBenchmark {
+
+  private static final int ENTRIES = 100;
+  private static final int FEEDS = 200;
+  private static final int PASSES = 50;
+  
+  public static void main(String... args) throws Exception {
+    final byte[] bytes = createFeed(ENTRIES);
+    
+    Object[] held = new Object[FEEDS];
+    long before = usedMemory();
+    for (int n = 0; n < FEEDS; n++) held[n] = parse(bytes);
+    long live = usedMemory() - before;
+    held = new Object[FEEDS];
+    before = usedMemory();
+    for (int n = 0; n < FEEDS; n++) held[n] = parse(bytes).freeze();
+    long frozen = usedMemory() - before;
+    System.out.println(String.format(
+      "%-40s %12d bytes/entry", "live OM tree", live / (FEEDS * ENTRIES)));
+    System.out.println(String.format(
+      "%-40s %12d bytes/entry", "snapshot", frozen / (FEEDS * ENTRIES)));
+    held = null;
+    
+    final Feed feed = parse(bytes);
+    final Feed snapshot = feed.freeze();
+    
+    measure("read live feed (per entry)", ENTRIES * PASSES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (int n = 0; n < PASSES; n++) last = read(feed);
+        return last;
+      }
+    });
+    
+    measure("read snapshot (per entry)", ENTRIES * PASSES, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (int n = 0; n < PASSES; n++) last = read(snapshot);
+        return last;
+      }
+    });
+    
+    measure("freeze (per entry)", ENTRIES, new Operation() {
+      public Object run() throws Exception {
+        return feed.freeze();
+      }
+    });
+  }
+  
+  private static Feed parse(byte[] bytes) {
+    Document<Feed> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(bytes));
+    Feed feed = doc.getRoot();
+    ((OMElement)feed).build();
+    return feed;
+  }
+  
+  private static Object read(Feed feed) throws Exception {
+    Object last = null;
+    for (Entry entry : feed.getEntries()) {
+      last = entry.getId();
+      last = entry.getTitle();
+      last = entry.getUpdated();
+      for (Link link : entry.getLinks()) last = link.getHref();
+      last = entry.getContent();
+    }
+    return last;
+  }
+  
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int n = 0; n < 4; n++) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {}
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+  
+}
@@ -18,15 +18,30 @@
 package org.apache.abdera.test.parser.stax;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import javax.activation.DataHandler;
 import javax.activation.MimeType;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
@@ -34,6 +49,7 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.apache.abdera.factory.Factory;
 import org.apache.abdera.filter.ParseFilter;
+import org.apache.abdera.filter.StopFilter;
 import org.apache.abdera.filter.TextFilter;
 import org.apache.abdera.model.AtomDate;
 import org.apache.abdera.model.Base;
@@ -55,16 +71,32 @@ import org.apache.abdera.model.Service;
 import org.apache.abdera.model.Source;
 import org.apache.abdera.model.Text;
 import org.apache.abdera.model.Workspace;
+import org.apache.abdera.parser.ParseException;
 import org.apache.abdera.parser.Parser;
 import org.apache.abdera.parser.ParserOptions;
+import org.apache.abdera.parser.stax.FOMControl;
+import org.apache.abdera.parser.stax.FOMException;
+import org.apache.abdera.parser.stax.FOMExtensionConstructor;
+import org.apache.abdera.parser.stax.FOMFactory;
+import org.apache.abdera.parser.stax.FOMParserOptions;
+import org.apache.abdera.parser.stax.FOMPushParser;
+import org.apache.abdera.parser.stax.FOMStreamingFeedReader;
+import org.apache.abdera.parser.stax.util.FOMList;
+import org.apache.abdera.parser.stax.util.FOMStAXFactoryPool;
 import org.apache.abdera.util.AbderaSource;
 import org.apache.abdera.util.BlackListParseFilter;
 import org.apache.abdera.util.Constants;
+import org.apache.abdera.util.SymbolTable;
 import org.apache.abdera.util.URIHelper;
 import org.apache.abdera.util.Version;
 import org.apache.abdera.util.WhiteListParseFilter;
 import org.apache.abdera.xpath.XPath;
 import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
 
 import junit.framework.TestCase;
 
@@ -206,6 +238,202 @@ public class FOMTest extends TestCase   {
 
   }
   
+  public void testNamespaceParseFilter() throws Exception {
+    StringBuffer buf = new StringBuffer();
+    buf.append("<feed xmlns='http://www.w3.org/2005/Atom' xmlns:v='urn:vendor'>");
+    buf.append("<id v:tag='x'>urn:feed</id>");
+    for (int n = 0; n < 10000; n++) 
+      buf.append("<v:data><v:nested>" + n + "</v:nested></v:data>");
+    buf.append("<title>Example Feed</title></feed>");
+    byte[] bytes = buf.toString().getBytes("UTF-8");
+    
+    ParseFilter filter = new BlackListParseFilter();
+    filter.addNamespace("urn:vendor");
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setParseFilter(filter);
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(bytes), (URI)null, options);
+    Feed feed = doc.getRoot();
+    assertEquals("Example Feed", feed.getTitle());
+    assertEquals(0, feed.getExtensions("urn:vendor").size());
+    assertNull(feed.getIdElement().getAttributeValue(new QName("urn:vendor", "tag")));
+    
+    filter = new WhiteListParseFilter();
+    filter.addNamespace(Constants.ATOM_NS);
+    options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setParseFilter(filter);
+    doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(bytes), (URI)null, options);
+    feed = doc.getRoot();
+    assertEquals("urn:feed", feed.getId().toString());
+    assertEquals("Example Feed", feed.getTitle());
+    assertEquals(0, feed.getExtensions("urn:vendor").size());
+  }
+  
+  public void testProjection() throws Exception {
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setProjection(Constants.ID, Constants.TITLE, Constants.LINK);
+    
+    URL url = FOMTest.class.getResource("/simple.xml");
+    InputStream in = url.openStream();
+    Document<Feed> doc = Parser.INSTANCE.parse(in, url.toURI(), options);
+    Feed feed = doc.getRoot();
+    
+    assertEquals("Example Feed", feed.getTitle());
+    assertEquals("http://example.org/", feed.getAlternateLink().getResolvedHref().toString());
+    assertNull(feed.getUpdated());
+    assertNull(feed.getAuthor());
+    
+    Entry entry = feed.getEntries().get(0);
+    assertEquals("Atom-Powered Robots Run Amok", entry.getTitle());
+    assertEquals("urn:uuid:1225c695-cfb8-4ebb-aaaa-80da344efa6a", entry.getId().toString());
+    assertEquals("http://example.org/2003/12/13/atom03", entry.getAlternateLink().getResolvedHref().toString());
+    assertNull(entry.getUpdated());
+    assertNull(entry.getSummary());
+    
+    options.setProjection();
+    assertNull(options.getProjection());
+  }
+  
+  public void testLazyContent() throws Exception {
+    String xhtml = "<div xmlns=\"http://www.w3.org/1999/xhtml\"><p>caf&#233;  &amp; <b>bar</b></p></div>";
+    String xml = "<x:foo><x:bar a=\"1\"/></x:foo>";
+    String feed = 
+      "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:x=\"urn:x\"><entry>" + 
+      "<title type=\"xhtml\">" + xhtml + "</title>" + 
+      "<content type=\"application/xml\">" + xml + "</content>" + 
+      "</entry></feed>";
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setLazyContent(true);
+    
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+    Entry entry = doc.getRoot().getEntries().get(0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    doc.writeTo(out);
+    String result = out.toString("UTF-8");
+    assertTrue(result.indexOf(xhtml) > -1);
+    assertTrue(result.indexOf(xml) > -1);
+    
+    // serializing the entry on its own must keep the body namespace-well-formed
+    out = new ByteArrayOutputStream();
+    entry.writeTo(out);
+    Document<Entry> edoc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(out.toByteArray()));
+    assertEquals("urn:x", edoc.getRoot().getContentElement().getValueElement().getQName().getNamespaceURI());
+    
+    assertEquals("bar", entry.getTitleElement().getValueElement().getFirstChild().getFirstChild().getText());
+    Element value = entry.getContentElement().getValueElement();
+    assertEquals(new QName("urn:x", "foo"), value.getQName());
+    
+    doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+    entry = doc.getRoot().getEntries().get(0);
+    entry.setContent("plain text");
+    entry.getTitleElement().getValueElement();
+    out = new ByteArrayOutputStream();
+    doc.writeTo(out);
+    result = out.toString("UTF-8");
+    assertTrue(result.indexOf("plain text") > -1);
+    assertTrue(result.indexOf("<x:bar") == -1);
+  }
+  
+  public void testLazyContentStAXImplementations() throws Exception {
+    String xhtml = "<div xmlns=\"http://www.w3.org/1999/xhtml\"><p>one <b>two</b></p></div>";
+    String feed = 
+      "<feed xmlns=\"http://www.w3.org/2005/Atom\"><entry>" + 
+      "<content type=\"xhtml\">" + xhtml + "</content>" + 
+      "<summary type='html'>&lt;b&gt;bold&lt;/b&gt;</summary></entry></feed>";
+    String[] factories = {
+      "com.ctc.wstx.stax.WstxInputFactory",
+      "com.bea.xml.stream.MXParserFactory" };
+    for (String factory : factories) {
+      FOMParserOptions options = 
+        (FOMParserOptions) Parser.INSTANCE.getDefaultParserOptions();
+      options.setXMLInputFactoryClass(factory);
+      options.setLazyContent(true);
+      Document<Feed> doc = Parser.INSTANCE.parse(
+        new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+      Entry entry = doc.getRoot().getEntries().get(0);
+      assertEquals(factory, Content.Type.XHTML, entry.getContentType());
+      assertEquals(factory, "<p xmlns=\"http://www.w3.org/1999/xhtml\">one <b>two</b></p>", entry.getContent());
+      assertEquals(factory, "<b>bold</b>", entry.getSummary());
+      assertTrue(factory, doc.getRoot().toString().indexOf(xhtml) > -1);
+    }
+  }
+
+  /**
+   * A writer type whose writeRaw method cannot be invoked from the parser
+   */
+  interface RawStreamWriter extends XMLStreamWriter {
+    void writeRaw(char[] text, int start, int len) throws XMLStreamException;
+  }
+
+  public void testLazyContentWriteRawFallback() throws Exception {
+    String xhtml = "<div xmlns=\"http://www.w3.org/1999/xhtml\"><p>one <b>two</b></p></div>";
+    String feed =
+      "<feed xmlns=\"http://www.w3.org/2005/Atom\"><entry>" +
+      "<content type=\"xhtml\">" + xhtml + "</content></entry></feed>";
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setLazyContent(true);
+    for (int n = 0; n < 2; n++) {
+      Document<Feed> doc = Parser.INSTANCE.parse(
+        new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final XMLStreamWriter delegate =
+        FOMStAXFactoryPool.getOutputFactory().createXMLStreamWriter(out, "UTF-8");
+      XMLStreamWriter writer = (XMLStreamWriter) Proxy.newProxyInstance(
+        RawStreamWriter.class.getClassLoader(),
+        new Class[] {RawStreamWriter.class},
+        new InvocationHandler() {
+          public Object invoke(Object proxy, Method method, Object[] args)
+            throws Throwable {
+              try {
+                return method.invoke(delegate, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+          }
+        });
+      ((OMElement)doc.getRoot()).serialize(writer);
+      writer.flush();
+      doc = Parser.INSTANCE.parse(new ByteArrayInputStream(out.toByteArray()));
+      assertEquals("<p xmlns=\"http://www.w3.org/1999/xhtml\">one <b>two</b></p>",
+        doc.getRoot().getEntries().get(0).getContent());
+    }
+  }
+  
+  public void testSymbolTable() throws Exception {
+    String feed = 
+      "<feed xmlns=\"http://www.w3.org/2005/Atom\">" + 
+      "<entry><category term=\"tech\" /><link rel=\"alternate\" href=\"http://example.org/1\" />" + 
+      "<author><name>Jane Doe</name></author></entry>" + 
+      "<entry><category term=\"tech\" /><link rel=\"alternate\" href=\"http://example.org/2\" />" + 
+      "<author><name>Jane Doe</name></author></entry>" + 
+      "</feed>";
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setInternValues(true);
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+    List<Entry> entries = doc.getRoot().getEntries();
+    Entry one = entries.get(0), two = entries.get(1);
+    assertSame(one.getCategories().get(0).getTerm(), two.getCategories().get(0).getTerm());
+    assertSame(Link.REL_ALTERNATE, one.getLinks().get(0).getAttributeValue("rel"));
+    assertSame(one.getAuthor().getName(), two.getAuthor().getName());
+    assertEquals("http://example.org/2", two.getAlternateLink().getHref().toString());
+    
+    SymbolTable symbols = new SymbolTable();
+    int size = symbols.size();
+    options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setSymbolTable(symbols);
+    assertTrue(options.getInternValues());
+    Document<Feed> doc2 = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.getBytes("UTF-8")), (URI)null, options);
+    String term = doc2.getRoot().getEntries().get(1).getCategories().get(0).getTerm();
+    assertTrue(symbols.size() > size);
+    assertSame(symbols.intern("tech"), term);
+  }
+  
   public void testTextFilter() throws Exception {
     
     TextFilter filter = new TextFilter() {
@@ -705,6 +933,268 @@ public class FOMTest extends TestCase   {
     assertEquals(entry.getSummary(), "Some text.");
   }
   
+  public void testStreamingFeedReader() throws Exception {
+    Feed feed = Factory.INSTANCE.newFeed();
+    feed.setTitle("Example Feed");
+    feed.setId("urn:uuid:60a76c80-d399-11d9-b93C-0003939e0af6", false);
+    feed.addLink("http://example.org/");
+    for (int n = 0; n < 100; n++) {
+      Entry entry = feed.addEntry();
+      entry.setId("urn:entry:" + n, false);
+      entry.setTitle("Entry " + n);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    feed.getDocument().writeTo(out);
+    
+    FOMStreamingFeedReader reader = 
+      new FOMStreamingFeedReader(
+        new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(reader.getFeed().getTitle(), "Example Feed");
+    assertEquals(reader.getFeed().getAlternateLink().getHref().toString(), "http://example.org/");
+    int n = 0;
+    for (Entry entry : reader) {
+      assertEquals(entry.getId().toString(), "urn:entry:" + n);
+      assertEquals(entry.getTitle(), "Entry " + n);
+      // entries that have already been consumed are detached from the feed
+      assertNull(entry.getPreviousSibling(Constants.ENTRY));
+      n++;
+    }
+    assertEquals(n, 100);
+    assertEquals(reader.getFeed().getEntries().size(), 0);
+    assertEquals(reader.getFeed().getId().toString(), "urn:uuid:60a76c80-d399-11d9-b93C-0003939e0af6");
+  }
+  
+  public void testPushParser() throws Exception {
+    String xml = 
+      "<?xml version='1.0' encoding='UTF-16'?>\n" + 
+      "<a:feed xmlns:a='http://www.w3.org/2005/Atom' xml:base='http://example.org/'>" + 
+      "<a:title>Caf\u00e9</a:title><!-- <a:entry> --><a:entry><a:id>urn:1</a:id>" + 
+      "<a:link href='1' /><a:summary><![CDATA[</a:entry>]]></a:summary></a:entry>" + 
+      "<x:entry xmlns:x='urn:x'><x:id>urn:x</x:id></x:entry>" + 
+      "<a:entry><a:id>urn:2</a:id><a:title type='xhtml'><div xmlns='http://www.w3.org/1999/xhtml'>" + 
+      "\u00fcber</div></a:title></a:entry><a:entry/><a:updated>2006-01-01T00:00:00Z</a:updated></a:feed>";
+    final List<Entry> entries = new ArrayList<Entry>();
+    final List<Document<? extends Element>> docs = new ArrayList<Document<? extends Element>>();
+    FOMPushParser.Callback callback = new FOMPushParser.Callback() {
+      public void entry(Entry entry) {
+        entries.add(entry);
+      }
+      public void completed(Document<? extends Element> document) {
+        docs.add(document);
+      }
+    };
+    for (String charset : new String[] {"UTF-8", "UTF-16"}) {
+      byte[] bytes = xml.replace("UTF-16", charset).getBytes(charset);
+      entries.clear();
+      docs.clear();
+      FOMPushParser parser = new FOMPushParser(callback);
+      for (int n = 0; n < bytes.length; n += 7) {
+        parser.feed(ByteBuffer.wrap(bytes, n, Math.min(7, bytes.length - n)));
+        if (n < bytes.length / 3) assertTrue(entries.isEmpty());
+      }
+      assertTrue(parser.isComplete());
+      parser.close();
+      assertEquals(3, entries.size());
+      assertEquals("urn:1", entries.get(0).getId().toString());
+      assertEquals("</a:entry>", entries.get(0).getSummary());
+      assertEquals("http://example.org/1", entries.get(0).getLinks().get(0).getResolvedHref().toString());
+      assertEquals("\u00fcber", entries.get(1).getTitleElement().getValueElement().getText());
+      assertEquals(1, docs.size());
+      Feed feed = (Feed) docs.get(0).getRoot();
+      assertEquals("Caf\u00e9", feed.getTitle());
+      assertNotNull(feed.getUpdated());
+      assertEquals(0, feed.getEntries().size());
+      assertNotNull(feed.getExtension(new QName("urn:x", "entry")));
+    }
+    
+    FOMPushParser parser = new FOMPushParser(callback);
+    parser.setRetainEntries(true);
+    docs.clear();
+    parser.feed(ByteBuffer.wrap(xml.replace("UTF-16", "UTF-8").getBytes("UTF-8")));
+    assertEquals(3, ((Feed)docs.get(0).getRoot()).getEntries().size());
+    
+    parser = new FOMPushParser(callback);
+    parser.feed(ByteBuffer.wrap("<entry xmlns='http://www.w3.org/2005/Atom'><id>".getBytes("UTF-8")));
+    try {
+      parser.close();
+      fail("Incomplete documents must be reported");
+    } catch (ParseException e) {}
+  }
+  
+  public void testEarlyTermination() throws Exception {
+    StringBuilder buf = new StringBuilder(
+      "<feed xmlns='http://www.w3.org/2005/Atom'><title>t</title>");
+    for (int n = 1; n <= 4; n++) 
+      buf.append("<entry><id> urn:" + n + " </id><updated>2006-01-0" + (6 - n) + 
+        "T00:00:00Z</updated></entry>");
+    // everything past the fourth entry is malformed and must not be read
+    buf.append("<entry><id>urn:5</foo>");
+    final byte[] bytes = buf.toString().getBytes("UTF-8");
+    final boolean[] closed = new boolean[1];
+    
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setEntryLimit(2);
+    Feed feed = parseFeed(bytes, closed, options);
+    assertEquals("t", feed.getTitle());
+    assertEquals(2, feed.getEntries().size());
+    assertTrue(closed[0]);
+    assertEquals(-1, Parser.INSTANCE.getDefaultParserOptions().getEntryLimit());
+    
+    options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setStopFilter(new StopFilter() {
+      public boolean stopAt(String id) {
+        return "urn:3".equals(id);
+      }
+    });
+    feed = parseFeed(bytes, closed, options);
+    assertEquals(2, feed.getEntries().size());
+    assertEquals(" urn:2 ", feed.getEntries().get(1).getIdElement().getText());
+    assertTrue(closed[0]);
+    
+    options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setUpdatedSince(AtomDate.parse("2006-01-03T00:00:00Z"));
+    feed = parseFeed(bytes, closed, options);
+    assertEquals(3, feed.getEntries().size());
+    assertTrue(closed[0]);
+    feed.addEntry().setId("urn:6");
+    assertEquals(4, feed.getEntries().size());
+  }
+  
+  private static Feed parseFeed(
+    byte[] bytes, 
+    final boolean[] closed, 
+    ParserOptions options) {
+      closed[0] = false;
+      InputStream in = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+        public void close() throws IOException {
+          closed[0] = true;
+          super.close();
+        }
+      };
+      Document<Feed> doc = Parser.INSTANCE.parse(in, (URI)null, options);
+      Feed feed = doc.getRoot();
+      feed.getEntries();
+      return feed;
+  }
+  
+  public void testStreamingBase64() throws Exception {
+    byte[] data = new byte[100000];
+    new java.util.Random(42).nextBytes(data);
+    for (int len : new int[] {data.length, data.length - 1, data.length - 2}) {
+      byte[] bytes = new byte[len];
+      System.arraycopy(data, 0, bytes, 0, len);
+      Entry entry = Factory.INSTANCE.newEntry();
+      entry.setContent(new DataHandler(new ByteArrayDataSource(bytes, "image/png")));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      entry.writeTo(out);
+      assertTrue(out.toString("US-ASCII").indexOf(org.apache.axiom.om.util.Base64.encode(bytes)) > -1);
+      
+      ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+      entry.getContentElement().writeDecodedTo(decoded);
+      assertTrue(java.util.Arrays.equals(bytes, decoded.toByteArray()));
+      
+      Document<Entry> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(out.toByteArray()));
+      decoded = new ByteArrayOutputStream();
+      doc.getRoot().getContentElement().writeDecodedTo(
+        java.nio.channels.Channels.newChannel(decoded));
+      assertTrue(java.util.Arrays.equals(bytes, decoded.toByteArray()));
+    }
+    
+    String xml = "<entry xmlns='http://www.w3.org/2005/Atom'><content type='text/plain'>" + 
+      "Zm9v\n  YmFy\r\nYg==</content></entry>";
+    Document<Entry> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    doc.getRoot().getContentElement().writeDecodedTo(decoded);
+    assertEquals("foobarb", decoded.toString("US-ASCII"));
+    
+    xml = "<entry xmlns='http://www.w3.org/2005/Atom'><content type='text/plain'>Zm9v*</content></entry>";
+    doc = Parser.INSTANCE.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    try {
+      doc.getRoot().getContentElement().writeDecodedTo(new ByteArrayOutputStream());
+      fail("Invalid Base64 must be reported");
+    } catch (IOException e) {}
+  }
+  
+  public void testExtensionConstructor() throws Exception {
+    final QName foo = new QName("urn:test", "foo", "t");
+    FOMFactory factory = new FOMFactory();
+    factory.registerExtension(foo, new FOMExtensionConstructor() {
+      public Element newInstance(QName qname, OMContainer parent, OMFactory factory) {
+        return new FOMControl(qname, parent, factory);
+      }
+      public Element newInstance(QName qname, OMContainer parent, OMFactory factory, OMXMLParserWrapper parserWrapper) {
+        return new FOMControl(qname, parent, factory, parserWrapper);
+      }
+    });
+    Entry entry = factory.newEntry();
+    entry.addExtension(foo);
+    assertTrue(entry.getExtension(foo) instanceof Control);
+    
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    entry.getDocument().writeTo(out);
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setFactory(factory);
+    Document<Entry> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(out.toByteArray()), (URI)null, options);
+    assertTrue(doc.getRoot().getExtension(foo) instanceof Control);
+    
+    try {
+      factory.registerExtension(new QName("urn:test", "bar"), Object.class);
+      fail("Classes without an extension constructor must be rejected");
+    } catch (FOMException e) {}
+  }
+  
+  public void testStAXFactoryPool() throws Exception {
+    FOMParserOptions options1 = new FOMParserOptions();
+    FOMParserOptions options2 = new FOMParserOptions();
+    assertSame(options1.getXMLInputFactory(), options2.getXMLInputFactory());
+    assertSame(options1.getXMLInputFactory(), FOMStAXFactoryPool.getInputFactory());
+    assertSame(options1.getXMLOutputFactory(), FOMStAXFactoryPool.getOutputFactory());
+    
+    options1.setCoalescing(true);
+    options2.setCoalescing(true);
+    assertTrue(options1.getCoalescing());
+    assertSame(options1.getXMLInputFactory(), options2.getXMLInputFactory());
+    assertNotSame(options1.getXMLInputFactory(), FOMStAXFactoryPool.getInputFactory());
+    assertEquals(Boolean.TRUE, 
+      options1.getXMLInputFactory().getProperty(XMLInputFactory.IS_COALESCING));
+    options2.setInterning(true);
+    XMLInputFactory factory = options2.getXMLInputFactory();
+    if (factory.isPropertySupported(FOMParserOptions.INTERN_NAMES))
+      assertEquals(Boolean.TRUE, factory.getProperty(FOMParserOptions.INTERN_NAMES));
+    
+    String xml = "<entry xmlns=\"http://www.w3.org/2005/Atom\"><title>a<![CDATA[b]]>c</title></entry>";
+    Document<Entry> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")), (URI)null, options1);
+    assertEquals("abc", doc.getRoot().getTitle());
+    
+    options1.setXMLInputFactoryClass("org.example.NoSuchFactory");
+    try {
+      Parser.INSTANCE.parse(
+        new ByteArrayInputStream(xml.getBytes("UTF-8")), (URI)null, options1);
+      fail("Unknown StAX implementations must be rejected");
+    } catch (ParseException e) {}
+
+    // documents are written with the output factory of their parser options
+    FOMParserOptions options3 = new FOMParserOptions();
+    options3.setXMLOutputFactoryClass("org.example.NoSuchFactory");
+    doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")), (URI)null, options3);
+    try {
+      doc.writeTo(new ByteArrayOutputStream());
+      fail("The document's output factory must be used");
+    } catch (FOMException e) {}
+    try {
+      doc.getRoot().getTitleElement().writeTo(new ByteArrayOutputStream());
+      fail("The element's output factory must be used");
+    } catch (FOMException e) {}
+    options3.setXMLOutputFactoryClass(
+      FOMStAXFactoryPool.getOutputFactory().getClass().getName());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    doc.writeTo(out);
+    assertTrue(out.toString("UTF-8").indexOf(">abc</title>") != -1);
+  }
+  
   public void testSourceResult() throws Exception {
     try {
       // Apply an XSLT transform to the entire Feed
@@ -736,4 +1226,404 @@ public class FOMTest extends TestCase   {
     }
   }
   
+  public void testChildIndex() throws Exception {
+    StringBuffer buf = new StringBuffer();
+    buf.append("<entry xmlns='http://www.w3.org/2005/Atom' xmlns:x='urn:x'>");
+    for (int n = 0; n < 20; n++) buf.append("<x:ext>" + n + "</x:ext>");
+    buf.append("<title>a</title><id>urn:a</id></entry>");
+    Document<Entry> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(buf.toString().getBytes("UTF-8")));
+    Entry entry = doc.getRoot();
+    ((OMElement)entry).build();
+    QName ext = new QName("urn:x", "ext");
+    assertEquals("a", entry.getTitle());
+    assertEquals("0", ((Element)entry.getExtension(ext)).getText());
+    
+    // children added, removed and inserted after the index is built
+    entry.getTitleElement().discard();
+    assertNull(entry.getTitleElement());
+    entry.setTitle("b");
+    assertEquals("b", entry.getTitle());
+    Element first = entry.getExtension(ext);
+    ((OMElement)first).detach();
+    assertEquals("1", ((Element)entry.getExtension(ext)).getText());
+    Element id = Factory.INSTANCE.newID();
+    id.setText("urn:b");
+    ((OMElement)entry.getExtension(ext)).insertSiblingBefore((OMElement)id);
+    assertEquals("urn:b", entry.getIdElement().getText());
+  }
+  
+  public void testChildIndexMatching() throws Exception {
+    // below and above the size at which children are indexed
+    for (int size : new int[] {1, 20}) {
+      StringBuffer buf = new StringBuffer();
+      buf.append("<entry xmlns='http://www.w3.org/2005/Atom' xmlns:x='urn:x'>");
+      for (int n = 0; n < size; n++) buf.append("<x:ext>" + n + "</x:ext>");
+      buf.append("<title>a</title><id>urn:a</id></entry>");
+      Document<Entry> doc = Parser.INSTANCE.parse(
+        new ByteArrayInputStream(buf.toString().getBytes("UTF-8")));
+      OMElement entry = (OMElement) doc.getRoot();
+      entry.build();
+      OMElement title = entry.getFirstChildWithName(Constants.TITLE);
+      assertNotNull(title);
+      assertSame(title, entry.getFirstChildWithName(new QName("title")));
+      assertSame(title, entry.getFirstChildWithName(new QName(Constants.ATOM_NS, "TITLE")));
+      assertSame(title, entry.getFirstChildWithName(new QName(Constants.ATOM_NS.toUpperCase(), "Title")));
+      assertEquals("0", entry.getFirstChildWithName(new QName("URN:X", "EXT")).getText());
+      assertNull(entry.getFirstChildWithName(new QName("urn:y", "ext")));
+    }
+  }
+  
+  public void testFOMList() throws Exception {
+    final int[] pulled = new int[1];
+    final Iterator<String> items = 
+      java.util.Arrays.asList("a","b","c","d").iterator();
+    FOMList<String> list = new FOMList<String>(new Iterator<String>() {
+      public boolean hasNext() { return items.hasNext(); }
+      public String next() { pulled[0]++; return items.next(); }
+      public void remove() {}
+    });
+    assertTrue(list instanceof java.util.RandomAccess);
+    assertFalse(list.isEmpty());
+    assertEquals(1, pulled[0]);
+    assertTrue(list.contains("b"));
+    assertEquals(2, pulled[0]);
+    assertEquals("a", list.iterator().next());
+    assertEquals("b", list.get(1));
+    assertEquals(2, pulled[0]);
+    assertEquals(4, list.size());
+    assertEquals(-1, list.indexOf("e"));
+    int n = 0;
+    for (Iterator<String> i = list.iterator(); i.hasNext(); i.next()) n++;
+    assertEquals(4, n);
+    assertEquals(4, pulled[0]);
+    assertTrue(new FOMList<String>(
+      java.util.Collections.<String>emptyList().iterator()).isEmpty());
+  }
+  
+  public void testTypedValueCache() throws Exception {
+    Link link = Factory.INSTANCE.newLink();
+    link.setHref("http://example.org/a");
+    link.setMimeType("text/plain; charset=utf-8");
+    assertSame(link.getHref(), link.getHref());
+    link.setHref("http://example.org/b");
+    assertEquals("http://example.org/b", link.getHref().toString());
+    ((OMElement)link).removeAttribute(
+      ((OMElement)link).getAttribute(new QName("href")));
+    assertNull(link.getHref());
+    
+    MimeType type = link.getMimeType();
+    type.setParameter("charset", "iso-8859-1");
+    assertEquals("utf-8", link.getMimeType().getParameter("charset"));
+    
+    DateTime updated = Factory.INSTANCE.newUpdated();
+    updated.setValue(AtomDate.valueOf("2006-01-01T00:00:00Z"));
+    AtomDate date = updated.getValue();
+    date.setValue(0L);
+    assertEquals(updated.getValue(), AtomDate.valueOf("2006-01-01T00:00:00Z"));
+    updated.setString("2007-01-01T00:00:00Z");
+    assertEquals(updated.getValue(), AtomDate.valueOf("2007-01-01T00:00:00Z"));
+    
+    IRI id = Factory.INSTANCE.newID();
+    id.setValue("urn:a");
+    assertSame(id.getValue(), id.getValue());
+    id.setText("urn:b");
+    assertEquals("urn:b", id.getValue().toString());
+  }
+  
+  public void testResolvedBaseCache() throws Exception {
+    String xml = 
+      "<feed xmlns='http://www.w3.org/2005/Atom' xml:base='http://example.org/a/'>" +
+      "<link href='feed'/>" +
+      "<entry xml:base='b/'><link href='entry'/>" +
+      "<source xml:base='/c/'><link href='source'/></source></entry>" + 
+      "<entry><link href='other'/></entry></feed>";
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    Feed feed = doc.getRoot();
+    Entry entry = feed.getEntries().get(0);
+    assertSame(entry.getResolvedBaseUri(), entry.getResolvedBaseUri());
+    
+    Map<Link,URI> hrefs = feed.getResolvedHrefs();
+    assertEquals(4, hrefs.size());
+    List<String> expected = java.util.Arrays.asList(
+      "http://example.org/a/feed", "http://example.org/a/b/entry", 
+      "http://example.org/c/source", "http://example.org/a/other");
+    int n = 0;
+    for (Map.Entry<Link,URI> href : hrefs.entrySet()) {
+      assertEquals(expected.get(n++), href.getValue().toString());
+      assertEquals(href.getKey().getResolvedHref(), href.getValue());
+    }
+    
+    // changes to xml:base above the element and moves to a new parent
+    feed.setBaseUri("http://example.com/");
+    assertEquals("http://example.com/b/", entry.getResolvedBaseUri().toString());
+    Feed other = Factory.INSTANCE.newFeed();
+    other.setBaseUri("http://example.net/");
+    ((OMElement)entry).detach();
+    other.addEntry(entry);
+    assertEquals("http://example.net/b/", entry.getResolvedBaseUri().toString());
+  }
+  public void testSnapshot() throws Exception {
+    String xml = 
+      "<feed xmlns='http://www.w3.org/2005/Atom' xml:base='http://example.org/'>" +
+      "<!-- comment --><title type='html'>a &amp;lt; b</title>\n" +
+      "<link href='feed'/><link rel='self' href='self'/>" +
+      "<entry xmlns:x='urn:x'><id>urn:e1</id>" +
+      "<updated>2007-01-02T03:04:05Z</updated>" +
+      "<category scheme='urn:s' term='t'/>" +
+      "<summary type='xhtml'><div xmlns='http://www.w3.org/1999/xhtml'>" +
+      "<p>a<b>b</b></p></div></summary>" +
+      "<x:ext x:a='1'>value</x:ext></entry></feed>";
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    Document<Feed> frozen = doc.freeze();
+    assertSame(frozen, frozen.freeze());
+    Feed feed = frozen.getRoot();
+    assertSame(feed, feed.freeze());
+    assertEquals("a &lt; b", feed.getTitle());
+    assertEquals(Text.Type.HTML, feed.getTitleType());
+    assertEquals("http://example.org/self", feed.getSelfLink().getResolvedHref().toString());
+    assertEquals("http://example.org/feed", feed.getAlternateLink().getResolvedHref().toString());
+    Entry entry = feed.getEntries().get(0);
+    assertSame(feed, entry.getParentElement());
+    assertSame(frozen, entry.getDocument());
+    assertEquals("urn:e1", entry.getId().toString());
+    assertEquals(AtomDate.parse("2007-01-02T03:04:05Z"), entry.getUpdated());
+    assertEquals(1, entry.getCategories("urn:s").size());
+    assertEquals("<p xmlns=\"http://www.w3.org/1999/xhtml\">a<b>b</b></p>", entry.getSummary());
+    assertEquals("value", entry.getSimpleExtension(new QName("urn:x", "ext")));
+    assertEquals(1, entry.getExtensions("urn:x").size());
+    
+    try {
+      entry.setTitle("changed");
+      fail("snapshots are read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      feed.getEntries().clear();
+      fail("snapshots are read-only");
+    } catch (UnsupportedOperationException e) {}
+    
+    // the snapshot serializes to equivalent xml without the comment
+    Feed reparsed = (Feed) Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.toString().getBytes("UTF-8"))).getRoot();
+    assertEquals(feed.getTitle(), reparsed.getTitle());
+    assertEquals(entry.getSummary(), reparsed.getEntries().get(0).getSummary());
+    assertEquals("1", reparsed.getEntries().get(0).getExtension(
+      new QName("urn:x", "ext")).getAttributeValue(new QName("urn:x", "a")));
+    assertTrue(feed.toString().indexOf("comment") == -1);
+    
+    // a frozen entry keeps the base it inherited and clones to a mutable copy
+    Entry single = doc.getRoot().getEntries().get(0).freeze();
+    assertTrue(single.getParentElement() instanceof Document);
+    assertEquals("http://example.org/", single.getResolvedBaseUri().toString());
+    Entry copy = (Entry) single.clone();
+    copy.setTitle("changed");
+    assertEquals("changed", copy.getTitle());
+    assertEquals("urn:e1", copy.getId().toString());
+  }
+  public void testComplete() throws Exception {
+    String xml = 
+      "<feed xmlns='http://www.w3.org/2005/Atom' xml:base='http://example.org/'>" +
+      "<title>Feed</title>" +
+      "<entry><id>urn:e1</id><title>One</title><link href='one'/>" +
+      "<content type='xhtml'><div xmlns='http://www.w3.org/1999/xhtml'>" +
+      "<p>one</p></div></content></entry>" +
+      "<entry><id>urn:e2</id><title>Two</title><link href='two'/></entry></feed>";
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setLazyContent(true);
+    final Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")), (URI)null, options);
+    assertFalse(doc.isReadOnly());
+    assertSame(doc, doc.complete());
+    assertTrue(doc.isReadOnly());
+    assertSame(doc, doc.complete());
+    
+    final Feed feed = doc.getRoot();
+    assertEquals(2, feed.getEntries().size());
+    Entry entry = feed.getEntries().get(0);
+    assertEquals("<p xmlns=\"http://www.w3.org/1999/xhtml\">one</p>", entry.getContent());
+    
+    try {
+      feed.setTitle("changed");
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      feed.addEntry();
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      entry.discard();
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      entry.getIdElement().setText("urn:changed");
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      doc.setBaseUri("http://example.com/");
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    assertEquals("Feed", feed.getTitle());
+    assertEquals("urn:e1", entry.getId().toString());
+    
+    // concurrent readers see the same values
+    final List<String> failures = java.util.Collections.synchronizedList(new ArrayList<String>());
+    Thread[] threads = new Thread[4];
+    for (int n = 0; n < threads.length; n++) {
+      threads[n] = new Thread() {
+        public void run() {
+          try {
+            for (int i = 0; i < 100; i++) {
+              List<Entry> entries = feed.getEntries();
+              if (!"urn:e2".equals(entries.get(1).getId().toString()) ||
+                  !"http://example.org/two".equals(
+                    entries.get(1).getAlternateLink().getResolvedHref().toString()))
+                failures.add("unexpected value");
+            }
+          } catch (Exception e) {
+            failures.add(e.toString());
+          }
+        }
+      };
+      threads[n].start();
+    }
+    for (Thread thread : threads) thread.join();
+    assertTrue(failures.toString(), failures.isEmpty());
+    
+    // copies are writable
+    Entry copy = (Entry) entry.clone();
+    copy.setTitle("changed");
+    assertEquals("changed", copy.getTitle());
+  }
+  
+  public void testClone() throws Exception {
+    String xml = 
+      "<feed xmlns='http://www.w3.org/2005/Atom' xmlns:ex='urn:ex'>" +
+      "<title type='html'>&lt;b&gt;Feed&lt;/b&gt;</title><ex:foo ex:a='1'>bar</ex:foo>" +
+      "<entry><id>urn:e1</id><title type='html'>&lt;b&gt;One&lt;/b&gt;</title>" +
+      "<link href='one' ex:rank='2'/><ex:foo ex:a='2'>baz<ex:bar/></ex:foo>" +
+      "<content type='xhtml'><div xmlns='http://www.w3.org/1999/xhtml'>" +
+      "<p>one</p></div></content></entry></feed>";
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    Feed feed = doc.getRoot();
+    Entry entry = feed.getEntries().get(0);
+    QName foo = new QName("urn:ex", "foo");
+    QName a = new QName("urn:ex", "a");
+    
+    Entry copy = (Entry) entry.clone();
+    assertNull(copy.getParentElement());
+    assertEquals("urn:e1", copy.getId().toString());
+    assertEquals(Text.Type.HTML, copy.getTitleType());
+    assertEquals("<b>One</b>", copy.getTitle());
+    assertEquals(Content.Type.XHTML, copy.getContentType());
+    assertEquals("<p xmlns=\"http://www.w3.org/1999/xhtml\">one</p>", copy.getContent());
+    assertEquals("2", copy.getAlternateLink().getAttributeValue(new QName("urn:ex", "rank")));
+    Element ext = copy.getExtension(foo);
+    assertNotNull(ext);
+    assertEquals("2", ext.getAttributeValue(a));
+    assertEquals("baz", ext.getText());
+    assertNotNull(ext.getFirstChild(new QName("urn:ex", "bar")));
+    
+    // the copy serializes on its own and is independent of the original
+    Entry reparsed = (Entry) Parser.INSTANCE.parse(
+      new ByteArrayInputStream(copy.toString().getBytes("UTF-8"))).getRoot();
+    assertEquals("2", reparsed.getExtension(foo).getAttributeValue(a));
+    copy.setTitle("changed");
+    ext.setAttributeValue(a, "3");
+    assertEquals("<b>One</b>", entry.getTitle());
+    assertEquals("2", entry.getExtension(foo).getAttributeValue(a));
+    
+    Source source = feed.getAsSource();
+    assertTrue(source.getTitleElement() instanceof Text);
+    assertEquals(Text.Type.HTML, source.getTitleType());
+    assertEquals("<b>Feed</b>", source.getTitle());
+    assertEquals("1", source.getExtension(foo).getAttributeValue(a));
+    assertTrue(source.getExtensions().size() == 1);
+    
+    // children created by a plain axiom factory are copied too
+    OMFactory omfactory = OMAbstractFactory.getOMFactory();
+    OMElement plain = omfactory.createOMElement(
+      "plain", omfactory.createOMNamespace("urn:ex", "ex"));
+    plain.setText("text");
+    ((OMElement)feed).addChild(plain);
+    source = feed.getAsSource();
+    assertTrue(source.getExtensions().size() == 2);
+    assertEquals("text", ((OMElement)source).getFirstChildWithName(
+      new QName("urn:ex", "plain")).getText());
+  }
+  
+  public void testSortEntries() throws Exception {
+    String xml = 
+      "<feed xmlns='http://www.w3.org/2005/Atom' xmlns:ex='urn:ex'>\n" +
+      "<title>Feed</title>\n" +
+      "<entry><id>urn:b</id><updated>2006-01-02T00:00:00Z</updated></entry>\n" +
+      "<ex:marker/>\n" +
+      "<entry><id>urn:c</id></entry>\n" +
+      "<entry><id>urn:a</id><updated>2006-01-03T00:00:00+01:00</updated></entry>\n" +
+      "<entry><id>urn:d</id><updated>2006-01-01T00:00:00Z</updated></entry>\n" +
+      "<entry><id>urn:e</id><updated>not a date</updated></entry>\n" +
+      "</feed>";
+    Document<Feed> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    Feed feed = doc.getRoot();
+    
+    feed.sortEntriesByUpdated(true);
+    assertEquals("urn:a urn:b urn:d urn:c urn:e", ids(feed));
+    feed.sortEntriesByUpdated(false);
+    assertEquals("urn:c urn:e urn:d urn:b urn:a", ids(feed));
+    feed.sortEntries(new java.util.Comparator<Entry>() {
+      public int compare(Entry a, Entry b) {
+        return a.getIdElement().getText().compareTo(b.getIdElement().getText());
+      }
+    });
+    assertEquals("urn:a urn:b urn:c urn:d urn:e", ids(feed));
+    assertEquals("urn:a", feed.getEntries().get(0).getId().toString());
+    
+    // the other children keep their positions
+    Feed reparsed = (Feed) Parser.INSTANCE.parse(
+      new ByteArrayInputStream(feed.toString().getBytes("UTF-8"))).getRoot();
+    assertEquals("urn:a urn:b urn:c urn:d urn:e", ids(reparsed));
+    String out = feed.toString();
+    assertTrue(out.indexOf("Feed</title>") < out.indexOf("urn:a"));
+    assertTrue(out.indexOf("urn:a") < out.indexOf("<ex:marker"));
+    assertTrue(out.indexOf("<ex:marker") < out.indexOf("urn:b"));
+    
+    List<Entry> more = new ArrayList<Entry>();
+    for (int n = 0; n < 3; n++) {
+      Entry entry = Factory.INSTANCE.newEntry();
+      entry.setId("urn:new" + n);
+      more.add(entry);
+    }
+    feed.addEntries(more);
+    assertEquals("urn:a urn:b urn:c urn:d urn:e urn:new0 urn:new1 urn:new2", ids(feed));
+    assertSame(feed, more.get(2).getParentElement());
+    
+    // re-adding the feed's own entries moves each of them to the end once
+    feed.addEntries(feed.getEntries());
+    assertEquals("urn:a urn:b urn:c urn:d urn:e urn:new0 urn:new1 urn:new2", ids(feed));
+    
+    doc.complete();
+    try {
+      feed.sortEntriesByUpdated(true);
+      fail("the document is read-only");
+    } catch (UnsupportedOperationException e) {}
+    try {
+      feed.freeze().addEntries(more);
+      fail("snapshots are read-only");
+    } catch (UnsupportedOperationException e) {}
+  }
+  
+  private static String ids(Feed feed) throws Exception {
+    StringBuffer buf = new StringBuffer();
+    for (Entry entry : feed.getEntries()) {
+      if (buf.length() > 0) buf.append(' ');
+      buf.append(entry.getId());
+    }
+    return buf.toString();
+  }
+
+
+  
 }
@@ -0,0 +1,87 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  The ASF licenses this file to You
+* under the Apache License, Version 2.0 (the "License"); you may not
+* use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.  For additional information regarding
+* copyright in this work, please see the NOTICE file in the top level
+* directory of this distribution.
+*/
+package org.apache.abdera.test.parser.stax;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.List;
+
+import javax.activation.MimeType;
+
+import org.apache.abdera.model.AtomDate;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Entry;
+import org.apache.abdera.model.Feed;
+import org.apache.abdera.model.Link;
+import org.apache.abdera.parser.Parser;
+import org.apache.axiom.om.OMElement;
+
+/**
+ * Compares repeated calls to the typed getters (link href and type, id, 
+ * updated) against parsing the same strings on every call, which is what
+ * the getters did before their values were cached
+ */
+public class FOMTypedValueBenchmark extends BaseBenchmark {
+
+  private static final int ENTRIES = 100;
+  private static final int CALLS = 10;
+  
+  public static void main(String... args) throws Exception {
+    byte[] bytes = createFeed(ENTRIES);
+    Document<Feed> doc = Parser.INSTANCE.parse(new ByteArrayInputStream(bytes));
+    final Feed feed = doc.getRoot();
+    ((OMElement)feed).build();
+    final List<Entry> entries = feed.getEntries();
+    for (Entry entry : entries) 
+      entry.getLinks().get(0).setMimeType("text/html; charset=utf-8");
+    int units = ENTRIES * CALLS * 4;
+    
+    measure("parse on every call (per value)", units, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (Entry entry : entries) {
+          Link link = entry.getLinks().get(0);
+          for (int n = 0; n < CALLS; n++) {
+            last = new URI(link.getAttributeValue("href"));
+            last = new MimeType(link.getAttributeValue("type"));
+            last = new URI(entry.getIdElement().getText());
+            last = AtomDate.valueOf(entry.getUpdatedElement().getText());
+          }
+        }
+        return last;
+      }
+    });
+    
+    measure("cached getters (per value)", units, new Operation() {
+      public Object run() throws Exception {
+        Object last = null;
+        for (Entry entry : entries) {
+          Link link = entry.getLinks().get(0);
+          for (int n = 0; n < CALLS; n++) {
+            last = link.getHref();
+            last = link.getMimeType();
+            last = entry.getId();
+            last = entry.getUpdatedElement().getValue();
+          }
+        }
+        return last;
+      }
+    });
+  }
+  
+}
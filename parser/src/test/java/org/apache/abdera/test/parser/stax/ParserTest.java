@@ -17,15 +17,44 @@
 */
 package org.apache.abdera.test.parser.stax;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
 import org.apache.abdera.factory.Factory;
+import org.apache.abdera.filter.TextFilter;
 import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Element;
 import org.apache.abdera.model.Entry;
 import org.apache.abdera.model.Feed;
 import org.apache.abdera.model.Service;
+import org.apache.abdera.parser.ParseException;
+import org.apache.abdera.parser.ParseListener;
+import org.apache.abdera.parser.ParseMetrics;
 import org.apache.abdera.parser.Parser;
+import org.apache.abdera.parser.ParserOptions;
 import org.apache.abdera.parser.stax.FOMFactory;
 import org.apache.abdera.parser.stax.FOMParser;
 import org.apache.abdera.parser.stax.FOMXPath;
+import org.apache.abdera.parser.stax.util.FOMSniffingInputStream;
+import org.apache.abdera.util.Constants;
+import org.apache.abdera.util.ParseStatistics;
 import org.apache.abdera.xpath.XPath;
 
 import junit.framework.TestCase;
@@ -54,5 +83,213 @@ public class ParserTest extends TestCase {
     
   }
   
+  public static void testCharsetSniffing() throws Exception {
+    String decl = "<?xml version=\"1.0\" encoding='ISO-8859-1'?><a/>";
+    assertEquals("ISO-8859-1", sniff(decl.getBytes("US-ASCII")));
+    assertEquals("ISO-8859-1", sniff(decl.getBytes("UTF-16LE")));
+    assertEquals("utf-16be", sniff("<?xml version='1.0'?><a/>".getBytes("UTF-16BE")));
+    assertEquals("utf-16le", sniff(new byte[] {(byte)0xFF,(byte)0xFE,'<',0}));
+    assertEquals("utf-8", sniff(new byte[] {(byte)0xEF,(byte)0xBB,(byte)0xBF,'<'}));
+    assertNull(sniff("<a/>".getBytes("US-ASCII")));
+    assertNull(sniff("<?xml version='1.0'?><a encoding='x'/>".getBytes("US-ASCII")));
+    
+    ByteBuffer buf = ByteBuffer.wrap(decl.getBytes("US-ASCII"));
+    assertEquals("ISO-8859-1", FOMSniffingInputStream.detectEncoding(buf));
+    assertEquals(0, buf.position());
+    
+    byte[] bytes = ("<?xml version='1.0' encoding='utf-8'?><entry xmlns='http://www.w3.org/2005/Atom'><title>" + 
+      "\u00e9t\u00e9</title></entry>").getBytes("utf-8");
+    // a stream that does not support mark/reset must have the sniffed bytes replayed
+    InputStream in = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+      public boolean markSupported() { return false; }
+    };
+    Document<Entry> doc = Parser.INSTANCE.parse(in);
+    assertEquals("\u00e9t\u00e9", doc.getRoot().getTitle());
+    assertEquals("utf-8", doc.getCharset());
+  }
+  
+  private static String sniff(byte[] bytes) {
+    FOMSniffingInputStream in = 
+      new FOMSniffingInputStream(new ByteArrayInputStream(bytes));
+    assertEquals(in.getEncoding(), 
+      FOMSniffingInputStream.detectEncoding(ByteBuffer.wrap(bytes)));
+    return in.getEncoding();
+  }
+  
+  public static void testParseBuffersAndFiles() throws Exception {
+    byte[] bytes = BaseBenchmark.createFeed(1000);
+    
+    ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+    buf.put(bytes).flip();
+    Document<Feed> doc = Parser.INSTANCE.parse(buf);
+    assertEquals(1000, doc.getRoot().getEntries().size());
+    assertEquals(0, buf.position());
+    
+    File file = File.createTempFile("abdera", ".xml");
+    try {
+      FileOutputStream out = new FileOutputStream(file);
+      out.write(bytes);
+      out.close();
+      
+      doc = Parser.INSTANCE.parse(file);
+      assertEquals(1000, doc.getRoot().getEntries().size());
+      assertEquals(file.toURI(), doc.getBaseUri());
+      
+      FileInputStream in = new FileInputStream(file);
+      try {
+        FileChannel channel = in.getChannel();
+        doc = Parser.INSTANCE.parse(channel);
+        assertEquals(1000, doc.getRoot().getEntries().size());
+        assertEquals(bytes.length, channel.position());
+      } finally {
+        in.close();
+      }
+    } finally {
+      file.delete();
+    }
+    
+    file = File.createTempFile("abdera", ".xml");
+    try {
+      FileOutputStream out = new FileOutputStream(file);
+      out.write(BaseBenchmark.createFeed(1));
+      out.close();
+      doc = Parser.INSTANCE.parse(file);
+      assertEquals(1, doc.getRoot().getEntries().size());
+    } finally {
+      file.delete();
+    }
+  }
+  
+  public static void testParseAll() throws Exception {
+    List<InputStream> streams = new ArrayList<InputStream>();
+    for (int n = 0; n < 200; n++) {
+      String xml = (n == 50) ? "<entry xmlns='http://www.w3.org/2005/Atom'><id>" : 
+        "<entry xmlns='http://www.w3.org/2005/Atom'><id>urn:" + n + "</id></entry>";
+      streams.add(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Document<Entry>>> results = 
+        Parser.INSTANCE.parseAll(streams, executor);
+      assertEquals(200, results.size());
+      for (int n = 0; n < results.size(); n++) {
+        if (n == 50) {
+          try {
+            results.get(n).get();
+            fail("Malformed documents must be reported");
+          } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ParseException);
+          }
+        } else {
+          assertEquals("urn:" + n, results.get(n).get().getRoot().getId().toString());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
+  public static void testParseListener() throws Exception {
+    final ParseMetrics[] result = new ParseMetrics[1];
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setParseListener(new ParseListener() {
+      public void parsed(ParseMetrics metrics) {
+        result[0] = metrics;
+      }
+    });
+    options.setProjection(Constants.ID);
+    options.setTextFilter(new TextFilter() {
+      public String filterText(String text, Element parent) {
+        return text.toUpperCase();
+      }
+    });
+    String xml = "<entry xmlns='http://www.w3.org/2005/Atom'><id>urn:a</id>" + 
+      "<title>t</title><author><name>n</name></author></entry>";
+    Document<Entry> doc = Parser.INSTANCE.parse(
+      new ByteArrayInputStream(xml.getBytes("UTF-8")), (URI)null, options);
+    assertNull(result[0]);
+    assertEquals("URN:A", doc.getRoot().getId().toString());
+    doc.getRoot().getTitle();
+    ParseMetrics metrics = result[0];
+    assertNotNull(metrics);
+    assertEquals(xml.length(), metrics.getBytesRead());
+    assertEquals(2, metrics.getElementsBuilt());
+    assertEquals(3, metrics.getElementsDropped());
+    assertEquals(1, metrics.getTextFiltered());
+    assertEquals("UTF-8", metrics.getCharset().toUpperCase());
+    assertTrue(metrics.getWallTime() > 0);
+    
+    List<InputStream> streams = new ArrayList<InputStream>();
+    for (int n = 0; n < 20; n++) {
+      xml = (n == 5) ? "<entry xmlns='http://www.w3.org/2005/Atom'><id>" : 
+        "<entry xmlns='http://www.w3.org/2005/Atom'><id>urn:" + n + "</id></entry>";
+      streams.add(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+    ParseStatistics stats = new ParseStatistics();
+    options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setParseListener(stats);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (Future<Document<Entry>> future : 
+          Parser.INSTANCE.<Entry>parseAll(streams, null, options, executor)) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {}
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(19, stats.getDocuments());
+    assertEquals(1, stats.getFailures());
+    assertTrue(stats.getElementsBuilt() >= 38);
+    assertTrue(stats.getBytesRead() > 0);
+    assertEquals(20, stats.getWallTime().getCount());
+    assertTrue(stats.getWallTime().getPercentile(50) > 0);
+    assertEquals(20L, stats.getCharsets().get("UTF-8").longValue());
+  }
+  
+  public static void testCompressedInput() throws Exception {
+    byte[] xml = BaseBenchmark.createFeed(20);
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+    OutputStream out = new GZIPOutputStream(gzip);
+    out.write(xml);
+    out.close();
+    ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+    out = new DeflaterOutputStream(zlib);
+    out.write(xml);
+    out.close();
+    
+    ParserOptions options = Parser.INSTANCE.getDefaultParserOptions();
+    options.setAutodetectCompression(true);
+    for (byte[] bytes : new byte[][] {xml, gzip.toByteArray(), zlib.toByteArray()}) {
+      for (int n = 0; n < 3; n++) {
+        InputStream in = new ByteArrayInputStream(bytes);
+        // exercise both the mark/reset and the push back paths
+        if (n == 1) in = new FilterInputStream(in) {
+          public boolean markSupported() {
+            return false;
+          }
+        };
+        Document<Feed> doc = (n == 2) ? 
+          Parser.INSTANCE.<Feed>parse(ByteBuffer.wrap(bytes), null, options) :
+          Parser.INSTANCE.<Feed>parse(in, (URI)null, options);
+        assertEquals(20, doc.getRoot().getEntries().size());
+      }
+      
+      InputStream in = FOMSniffingInputStream.decompress(new ByteArrayInputStream(bytes));
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      byte[] buf = new byte[1000];
+      for (int r = in.read(buf); r != -1; r = in.read(buf)) 
+        result.write(buf, 0, r);
+      in.close();
+      assertTrue(java.util.Arrays.equals(xml, result.toByteArray()));
+    }
+    
+    try {
+      Parser.INSTANCE.parse(new ByteArrayInputStream(gzip.toByteArray())).getRoot();
+      fail("Compressed input must not be accepted unless enabled");
+    } catch (ParseException e) {}
+  }
+  
   //TODO: need lots more unit tests
 }